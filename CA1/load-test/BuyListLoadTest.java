@@ -0,0 +1,69 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Closed-loop load against /buy-list/add: each client sends one request at a time for a fixed duration.
+// Run with JDK 21+: java load-test/BuyListLoadTest.java [baseUrl] [clients] [seconds] [users] [commodities]
+public class BuyListLoadTest {
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        int users = args.length > 3 ? Integer.parseInt(args[3]) : 10_000;
+        int commodities = args.length > 4 ? Integer.parseInt(args[4]) : 100_000;
+
+        HttpClient client = HttpClient.newBuilder().executor(Runnable::run).build();
+        URI uri = URI.create(baseUrl + "/buy-list/add");
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        long[][] latencies = new long[clients][];
+        AtomicLong errors = new AtomicLong();
+
+        Thread[] threads = new Thread[clients];
+        for (int c = 0; c < clients; c++) {
+            int index = c;
+            threads[c] = Thread.ofVirtual().start(() -> {
+                long[] samples = new long[1024];
+                int count = 0;
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    String body = "{\"username\":\"user" + random.nextInt(users) + "\",\"id\":\""
+                            + random.nextInt(commodities) + "\"}";
+                    HttpRequest request = HttpRequest.newBuilder(uri)
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(body))
+                            .build();
+                    long start = System.nanoTime();
+                    try {
+                        client.send(request, HttpResponse.BodyHandlers.discarding());
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                        continue;
+                    }
+                    if (count == samples.length)
+                        samples = Arrays.copyOf(samples, count * 2);
+                    samples[count++] = System.nanoTime() - start;
+                }
+                latencies[index] = Arrays.copyOf(samples, count);
+            });
+        }
+        for (Thread thread : threads)
+            thread.join();
+
+        long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+        System.out.printf("requests=%d errors=%d throughput=%.0f req/s p50=%.1f ms p99=%.1f ms%n",
+                all.length, errors.get(), all.length / (double) seconds,
+                percentile(all, 0.50), percentile(all, 0.99));
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0)
+            return 0;
+
+        return sorted[(int) Math.min(sorted.length - 1, sorted.length * quantile)] / 1e6;
+    }
+}
@@ -0,0 +1,80 @@
+package benchmarks;
+
+import exceptions.*;
+import model.User;
+import org.openjdk.jmh.annotations.*;
+import service.Baloot;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Every benchmark thread shops as its own user; hotCommodities controls how much checkouts contend on stock.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BuyListBenchmark {
+    @Param({"100000"})
+    public int size;
+
+    @Param({"5"})
+    public int cartSize;
+
+    @Param({"100000"})
+    public int hotCommodities;
+
+    private final AtomicInteger nextUser = new AtomicInteger();
+
+    // The cart is filled once; pricing it leaves it untouched.
+    @State(Scope.Thread)
+    public static class Shopper {
+        User user;
+
+        @Setup
+        public void setUp(BuyListBenchmark benchmark)
+                throws NotExistentUser, NotExistentCommodity, AlreadyInBuyList {
+            user = Baloot.getInstance().getUserById(SyntheticData.username(benchmark.nextUser.getAndIncrement()));
+            benchmark.fillCart(user);
+        }
+    }
+
+    // Checkout empties the cart, so it is refilled before every call outside the measured time.
+    @State(Scope.Thread)
+    public static class Buyer {
+        User user;
+
+        @Setup
+        public void setUp(BuyListBenchmark benchmark) throws NotExistentUser {
+            user = Baloot.getInstance().getUserById(SyntheticData.username(benchmark.nextUser.getAndIncrement()));
+        }
+
+        @Setup(Level.Invocation)
+        public void refill(BuyListBenchmark benchmark)
+                throws NotExistentUser, NotExistentCommodity, AlreadyInBuyList {
+            benchmark.fillCart(user);
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        SyntheticData.populate(size, size);
+    }
+
+    private void fillCart(User user) throws NotExistentUser, NotExistentCommodity, AlreadyInBuyList {
+        for (int i = 0; i < cartSize; i++)
+            Baloot.getInstance().addCommodityToUserBuyList(user.getUsername(),
+                    SyntheticData.commodityId(ThreadLocalRandom.current().nextInt(Math.min(hotCommodities, size))));
+    }
+
+    @Benchmark
+    public float getCurrentBuyListPrice(Shopper shopper) {
+        return Baloot.getInstance().getCurrentBuyListPrice(shopper.user);
+    }
+
+    @Benchmark
+    public void withdrawPayableAmount(Buyer buyer) throws InsufficientCredit, NotInStock {
+        Baloot.getInstance().withdrawPayableAmount(buyer.user);
+    }
+}
@@ -0,0 +1,37 @@
+package benchmarks;
+
+import exceptions.NotExistentCommodity;
+import exceptions.NotExistentUser;
+import model.Commodity;
+import model.User;
+import org.openjdk.jmh.annotations.*;
+import service.Baloot;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class LookupBenchmark {
+    @Param({"10000", "1000000"})
+    public int size;
+
+    @Setup
+    public void setUp() {
+        SyntheticData.populate(size, size);
+    }
+
+    @Benchmark
+    public User getUserById() throws NotExistentUser {
+        return Baloot.getInstance().getUserById(SyntheticData.username(ThreadLocalRandom.current().nextInt(size)));
+    }
+
+    @Benchmark
+    public Commodity getCommodityById() throws NotExistentCommodity {
+        return Baloot.getInstance().getCommodityById(
+                SyntheticData.commodityId(ThreadLocalRandom.current().nextInt(size)));
+    }
+}
@@ -0,0 +1,49 @@
+package benchmarks;
+
+import model.Comment;
+import model.Commodity;
+import model.Vote;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// All threads rate and vote on the same commodity and comment, so -t shows how the updates behave under contention.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RatingBenchmark {
+    @Param({"1000", "1000000"})
+    public int raters;
+
+    private Commodity commodity;
+    private Comment comment;
+
+    @Setup
+    public void setUp() {
+        commodity = new Commodity();
+        commodity.setId("hot");
+        comment = new Comment(0, "user@mail.com", "user", 0, "text");
+        for (int i = 0; i < raters; i++) {
+            commodity.addRate(SyntheticData.username(i), 1 + i % 10);
+            comment.addUserVote(SyntheticData.username(i), i % 2 == 0 ? Vote.LIKE : Vote.DISLIKE);
+        }
+    }
+
+    @Benchmark
+    public float addRate() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        commodity.addRate(SyntheticData.username(random.nextInt(raters * 2)), 1 + random.nextInt(10));
+        return commodity.getRating();
+    }
+
+    @Benchmark
+    public int addUserVote() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        comment.addUserVote(SyntheticData.username(random.nextInt(raters * 2)),
+                random.nextBoolean() ? Vote.LIKE : Vote.DISLIKE);
+        return comment.getLike();
+    }
+}
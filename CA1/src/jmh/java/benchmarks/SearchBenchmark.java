@@ -0,0 +1,75 @@
+package benchmarks;
+
+import exceptions.NotExistentCommodity;
+import model.Commodity;
+import org.openjdk.jmh.annotations.*;
+import service.Baloot;
+import service.CommodityQuery;
+import service.CommodityQueryEngine;
+import utils.PageRequest;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Results go through the query cache; run with -p cacheSize=0 to measure the indexes alone. queryCommodities calls the
+// query engine directly with a fresh combination of predicates each time, so it never hits the cache.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SearchBenchmark {
+    @Param({"10000", "1000000"})
+    public int size;
+
+    @Param({"20"})
+    public int limit;
+
+    @Param({"10000"})
+    public long cacheSize;
+
+    private final CommodityQueryEngine queryEngine = new CommodityQueryEngine();
+    private PageRequest page;
+
+    @Setup
+    public void setUp() {
+        Baloot.getInstance().configureQueryCache(cacheSize);
+        SyntheticData.populate(size / 10, size);
+        page = new PageRequest(null, null, null, null, String.valueOf(limit));
+    }
+
+    @Benchmark
+    public List<Commodity> filterCommoditiesByName() {
+        String word = SyntheticData.WORDS[ThreadLocalRandom.current().nextInt(SyntheticData.WORDS.length)];
+        return Baloot.getInstance().filterCommoditiesByName(word.substring(1), limit);
+    }
+
+    @Benchmark
+    public List<Commodity> filterCommoditiesByCategory() {
+        return Baloot.getInstance().filterCommoditiesByCategory(SyntheticData.category(ThreadLocalRandom.current()));
+    }
+
+    @Benchmark
+    public List<Commodity> filterCommoditiesByProviderName() {
+        int providers = Math.max(1, size / SyntheticData.PROVIDER_SIZE);
+        return Baloot.getInstance().filterCommoditiesByProviderName(
+                SyntheticData.providerName(ThreadLocalRandom.current().nextInt(providers)));
+    }
+
+    @Benchmark
+    public List<Commodity> suggestSimilarCommodities() throws NotExistentCommodity {
+        Commodity commodity = Baloot.getInstance().getCommodityById(
+                SyntheticData.commodityId(ThreadLocalRandom.current().nextInt(size)));
+        return Baloot.getInstance().suggestSimilarCommodities(commodity);
+    }
+
+    @Benchmark
+    public List<Commodity> queryCommodities() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int startPrice = random.nextInt(1000);
+        CommodityQuery query = new CommodityQuery(SyntheticData.WORDS[random.nextInt(SyntheticData.WORDS.length)],
+                List.of(SyntheticData.category(random)), null, startPrice, startPrice + random.nextInt(500), true);
+        return queryEngine.run(query, page);
+    }
+}
@@ -0,0 +1,87 @@
+package benchmarks;
+
+import database.Database;
+import model.Comment;
+import model.Commodity;
+import model.Provider;
+import model.User;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+public final class SyntheticData {
+    static final String[] WORDS = {"phone", "laptop", "galaxy", "tablet", "watch", "camera", "speaker", "charger",
+            "monitor", "keyboard", "mouse", "router", "console", "drone", "printer", "headset"};
+    static final int CATEGORY_COUNT = 64;
+    static final int PROVIDER_SIZE = 100;
+
+    private SyntheticData() {
+    }
+
+    public static void populate(int users, int commodities) {
+        Database database = Database.getInstance();
+        database.clearUsers();
+        database.clearProviders();
+        database.clearCommodities();
+        database.clearComments();
+
+        Random random = new Random(42);
+        int providers = Math.max(1, commodities / PROVIDER_SIZE);
+        for (int i = 0; i < providers; i++) {
+            Provider provider = new Provider();
+            provider.setId(providerId(i));
+            provider.setName(providerName(i));
+            provider.setRegistryDate("2000-01-01");
+            provider.setImage("");
+            database.addProvider(provider);
+        }
+
+        for (int i = 0; i < commodities; i++) {
+            Commodity commodity = new Commodity();
+            commodity.setId(commodityId(i));
+            commodity.setName(WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + i);
+            commodity.setProviderId(providerId(random.nextInt(providers)));
+            commodity.setPrice(1 + random.nextInt(1000));
+            ArrayList<String> categories = new ArrayList<>();
+            for (int c = 1 + random.nextInt(3); c > 0; c--)
+                categories.add(category(random));
+            commodity.setCategories(categories);
+            commodity.setRating(1 + random.nextFloat() * 9);
+            commodity.setInStock(Integer.MAX_VALUE / 2);
+            commodity.setImage("");
+            database.addCommodity(commodity);
+        }
+
+        for (int i = 0; i < users; i++) {
+            User user = new User(username(i), "password", username(i) + "@mail.com", "2000-01-01", "Tehran");
+            user.setCredit(Float.MAX_VALUE / 2);
+            database.addUser(user);
+        }
+
+        for (int i = 0; i < commodities; i++)
+            database.addComment(new Comment(database.nextCommentId(), username(random.nextInt(users)) + "@mail.com",
+                    username(random.nextInt(users)), i, "comment " + i));
+    }
+
+    static String category(Random random) {
+        // Skewed towards low ids so a few categories are large, like a real catalog.
+        int id = (int) (CATEGORY_COUNT * Math.pow(random.nextDouble(), 2));
+        return "category-" + id;
+    }
+
+    static String commodityId(int i) {
+        return String.valueOf(i);
+    }
+
+    static String providerId(int i) {
+        return "p" + i;
+    }
+
+    static String providerName(int i) {
+        return "provider-" + i;
+    }
+
+    static String username(int i) {
+        return "user" + i;
+    }
+}
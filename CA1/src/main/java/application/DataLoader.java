@@ -0,0 +1,143 @@
+package application;
+
+import database.DataParser;
+import database.WriteAheadLog;
+import service.Baloot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@Component("dataLoad")
+public class DataLoader implements SmartInitializingSingleton, DisposableBean, HealthIndicator {
+    private static final Logger logger = LoggerFactory.getLogger(DataLoader.class);
+
+    @Value("${baloot.data.async-load:false}")
+    private boolean asyncLoad;
+
+    @Value("${baloot.data.path:" + DataParser.DEFAULT_DATA_PATH + "}")
+    private String dataPath;
+
+    @Value("${baloot.snapshot.path:}")
+    private String snapshotPath;
+
+    @Value("${baloot.snapshot.interval:PT5M}")
+    private Duration snapshotInterval;
+
+    @Value("${baloot.wal.path:}")
+    private String walPath;
+
+    @Value("${baloot.wal.durability:SYNC}")
+    private WriteAheadLog.Durability walDurability;
+
+    private volatile boolean loaded;
+    private volatile Exception failure;
+    private ScheduledExecutorService snapshotScheduler;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!asyncLoad) {
+            load();
+            return;
+        }
+
+        Thread loader = new Thread(() -> {
+            try {
+                load();
+            } catch (RuntimeException e) {
+                failure = e;
+                logger.error("Loading data failed", e);
+            }
+        }, "baloot-data-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    private void load() {
+        long start = System.nanoTime();
+        Path snapshot = snapshotPath.isEmpty() ? null : Path.of(snapshotPath);
+        long lastLsn = 0;
+
+        try {
+            if (snapshot != null && Files.exists(snapshot)) {
+                lastLsn = Baloot.getInstance().loadSnapshot(snapshot);
+                logger.info("Data restored from snapshot {} in {} ms", snapshot,
+                        (System.nanoTime() - start) / 1_000_000);
+            } else {
+                Baloot.getInstance().fetchAndStoreData(dataPath);
+                logger.info("Data loaded in {} ms", (System.nanoTime() - start) / 1_000_000);
+            }
+
+            if (!walPath.isEmpty()) {
+                start = System.nanoTime();
+                Baloot.getInstance().openJournal(Path.of(walPath), walDurability, lastLsn);
+                logger.info("Write-ahead log {} replayed in {} ms", walPath, (System.nanoTime() - start) / 1_000_000);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        loaded = true;
+        if (snapshot != null)
+            scheduleSnapshots(snapshot);
+    }
+
+    private synchronized void scheduleSnapshots(Path snapshot) {
+        snapshotScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "baloot-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = snapshotInterval.toMillis();
+        snapshotScheduler.scheduleWithFixedDelay(() -> saveSnapshot(snapshot), interval, interval,
+                TimeUnit.MILLISECONDS);
+    }
+
+    private void saveSnapshot(Path snapshot) {
+        long start = System.nanoTime();
+        try {
+            Baloot.getInstance().saveSnapshot(snapshot);
+            logger.info("Snapshot written to {} in {} ms", snapshot, (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException | RuntimeException e) {
+            logger.error("Writing snapshot to {} failed", snapshot, e);
+        }
+    }
+
+    @Override
+    public synchronized void destroy() throws InterruptedException, IOException {
+        if (snapshotScheduler != null) {
+            snapshotScheduler.shutdown();
+            snapshotScheduler.awaitTermination(1, TimeUnit.MINUTES);
+            saveSnapshot(Path.of(snapshotPath));
+        }
+
+        Baloot.getInstance().closeJournal();
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    @Override
+    public Health health() {
+        if (failure != null)
+            return Health.down(failure).build();
+        if (!loaded)
+            return Health.down().withDetail("reason", "data is still loading").build();
+
+        return Health.up().build();
+    }
+}
@@ -0,0 +1,42 @@
+package application;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+
+// Rejects every mutating request until the data is loaded and the journal is open: writes made earlier would not be
+// journaled and could be wiped by the seed loader's clears. Lookups that take their arguments in a POST body stay
+// available; a login may rehash a seed password on the way, and if that is lost it is simply redone next time.
+@Component
+public class LoadingWriteGuard extends OncePerRequestFilter {
+    private static final Set<String> READ_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+    private static final Set<String> READ_ROUTES = Set.of("/buy-list", "/purchased-list", "/commodities/search",
+            "/commodities/query", "/login");
+
+    private final DataLoader dataLoader;
+
+    public LoadingWriteGuard(DataLoader dataLoader) {
+        this.dataLoader = dataLoader;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (dataLoader.isLoaded() || READ_METHODS.contains(request.getMethod())
+                || READ_ROUTES.contains(request.getServletPath())) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader("Retry-After", "5");
+        response.getWriter().write("data is still loading");
+    }
+}
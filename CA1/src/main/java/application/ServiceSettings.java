@@ -0,0 +1,48 @@
+package application;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import service.Baloot;
+import service.LoginRateLimiter;
+import service.PasswordHasher;
+
+import java.time.Duration;
+
+// Applied when the bean is created, which is before DataLoader starts loading once every singleton exists.
+@Component
+public class ServiceSettings implements InitializingBean {
+    @Value("${baloot.cache.max-size:10000}")
+    private long cacheMaxSize;
+
+    @Value("${baloot.login.bcrypt-strength:10}")
+    private int bcryptStrength;
+
+    @Value("${baloot.login.threads:0}")
+    private int loginThreads;
+
+    @Value("${baloot.login.queue-size:256}")
+    private int loginQueueSize;
+
+    @Value("${baloot.login.user-burst:10}")
+    private int userBurst;
+
+    @Value("${baloot.login.user-per-minute:30}")
+    private int userPerMinute;
+
+    @Value("${baloot.login.address-burst:100}")
+    private int addressBurst;
+
+    @Value("${baloot.login.address-per-minute:300}")
+    private int addressPerMinute;
+
+    @Override
+    public void afterPropertiesSet() {
+        Baloot.getInstance().configureQueryCache(cacheMaxSize);
+
+        int threads = loginThreads > 0 ? loginThreads : Runtime.getRuntime().availableProcessors();
+        Baloot.getInstance().configureLogins(
+                new PasswordHasher(bcryptStrength, threads, loginQueueSize, Duration.ofMinutes(1)),
+                new LoginRateLimiter(userBurst, userPerMinute), new LoginRateLimiter(addressBurst, addressPerMinute));
+    }
+}
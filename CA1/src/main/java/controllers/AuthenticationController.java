@@ -4,7 +4,9 @@ import service.Baloot;
 import model.User;
 import exceptions.IncorrectPassword;
 import exceptions.NotExistentUser;
+import exceptions.TooManyLoginAttempts;
 import exceptions.UsernameAlreadyTaken;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -16,16 +18,18 @@ import java.util.Map;
 @RestController
 public class AuthenticationController {
     @PostMapping(value = "/login")
-    public ResponseEntity<String> login(@RequestBody Map<String, String> input) {
+    public ResponseEntity<String> login(@RequestBody Map<String, String> input, HttpServletRequest request) {
         try {
             String username = input.get("username");
             String password = input.get("password");
-            Baloot.getInstance().login(username, password);
+            Baloot.getInstance().login(username, password, request.getRemoteAddr());
             return new ResponseEntity<>("login successfully!", HttpStatus.OK);
         } catch (NotExistentUser e) {
-            return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+            return ErrorResponses.of(e, HttpStatus.NOT_FOUND);
         } catch (IncorrectPassword e) {
-            return new ResponseEntity<>(e.getMessage(), HttpStatus.UNAUTHORIZED);
+            return ErrorResponses.of(e, HttpStatus.UNAUTHORIZED);
+        } catch (TooManyLoginAttempts e) {
+            return ErrorResponses.of(e, HttpStatus.TOO_MANY_REQUESTS);
         }
     }
 
@@ -43,7 +47,9 @@ public class AuthenticationController {
             Baloot.getInstance().addUser(newUser);
             return new ResponseEntity<>("signup successfully!", HttpStatus.OK);
         } catch (UsernameAlreadyTaken e) {
-            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+            return ErrorResponses.of(e, HttpStatus.BAD_REQUEST);
+        } catch (TooManyLoginAttempts e) {
+            return ErrorResponses.of(e, HttpStatus.TOO_MANY_REQUESTS);
         }
     }
 }
@@ -16,24 +16,16 @@ import java.util.Map;
 
 @RestController
 public class BuyListController {
+    public record AddItemsRequest(String username, Map<String, Integer> items) {
+    }
+
     @PostMapping(value = "/buy-list")
     public ResponseEntity<ArrayList<BuyListItem>> getBuyList(@RequestBody Map<String, String> input) {
         String username = input.get("username");
-        ArrayList<BuyListItem> buyListItems = new ArrayList<>();
-
         try {
-            Map<String, Integer> buyList = Baloot.getInstance().getUserBuyList(username);
-            for (Map.Entry<String, Integer> entry : buyList.entrySet()) {
-                Commodity commodity = Baloot.getInstance().getCommodityById(entry.getKey());
-                int quantity = entry.getValue();
-
-                BuyListItem buyListItem = new BuyListItem(commodity, quantity);
-                buyListItems.add(buyListItem);
-            }
-            return new ResponseEntity<>(buyListItems, HttpStatus.OK);
-
-        } catch (NotExistentUser | NotExistentCommodity ignored) {
-            return new ResponseEntity<>(buyListItems, HttpStatus.NOT_FOUND);
+            return new ResponseEntity<>(Baloot.getInstance().getUserBuyListItems(username), HttpStatus.OK);
+        } catch (NotExistentUser e) {
+            return ErrorResponses.of(e, new ArrayList<>(), HttpStatus.NOT_FOUND);
         }
     }
 
@@ -53,8 +45,8 @@ public class BuyListController {
             }
             return new ResponseEntity<>(purchasedListItems, HttpStatus.OK);
 
-        } catch (NotExistentUser | NotExistentCommodity ignored) {
-            return new ResponseEntity<>(purchasedListItems, HttpStatus.NOT_FOUND);
+        } catch (NotExistentUser | NotExistentCommodity e) {
+            return ErrorResponses.of(e, purchasedListItems, HttpStatus.NOT_FOUND);
         }
     }
 
@@ -65,9 +57,24 @@ public class BuyListController {
             Baloot.getInstance().addCommodityToUserBuyList(username, input.get("id"));
             return new ResponseEntity<>("commodity added to buy list successfully!", HttpStatus.OK);
         } catch (NotExistentUser | NotExistentCommodity e) {
-            return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
-        } catch (AlreadyInBuyList e) {
-            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+            return ErrorResponses.of(e, HttpStatus.NOT_FOUND);
+        } catch (AlreadyInBuyList | IllegalArgumentException e) {
+            return ErrorResponses.of(e, HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @PostMapping(value = "/buy-list/add/batch")
+    public ResponseEntity<String> addAllToBuyList(@RequestBody AddItemsRequest input) {
+        if (input.items() == null)
+            return new ResponseEntity<>("items cannot be null.", HttpStatus.BAD_REQUEST);
+
+        try {
+            Baloot.getInstance().addCommoditiesToUserBuyList(input.username(), input.items());
+            return new ResponseEntity<>("commodities added to buy list successfully!", HttpStatus.OK);
+        } catch (NotExistentUser | NotExistentCommodity e) {
+            return ErrorResponses.of(e, HttpStatus.NOT_FOUND);
+        } catch (IllegalArgumentException e) {
+            return ErrorResponses.of(e, HttpStatus.BAD_REQUEST);
         }
     }
 
@@ -79,7 +86,7 @@ public class BuyListController {
             return new ResponseEntity<>("commodity added to buy list successfully!", HttpStatus.OK);
         } catch (MissingUserId | MissingCommodityId | NotExistentUser | NotExistentCommodity |
                  CommodityIsNotInBuyList e) {
-            return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+            return ErrorResponses.of(e, HttpStatus.NOT_FOUND);
         }
     }
 
@@ -90,8 +97,8 @@ public class BuyListController {
             User user = Baloot.getInstance().getUserById(username);
             Baloot.getInstance().withdrawPayableAmount(user);
             return new ResponseEntity<>("buy list purchased successfully!", HttpStatus.OK);
-        } catch (InsufficientCredit | NotExistentUser | NotInStock e) {
-            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (InsufficientCredit | NotExistentUser | NotInStock | IllegalArgumentException e) {
+            return ErrorResponses.of(e, HttpStatus.BAD_REQUEST);
         }
     }
 
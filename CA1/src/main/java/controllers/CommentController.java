@@ -1,7 +1,7 @@
 package controllers;
 
 import service.Baloot;
-import model.Comment;
+import model.Vote;
 import exceptions.NotExistentComment;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -18,12 +18,11 @@ public class CommentController {
     public ResponseEntity<String> likeComment(@PathVariable String id, @RequestBody Map<String, String> input) {
         int commentId = Integer.parseInt(id);
         try {
-            Comment comment = Baloot.getInstance().getCommentById(commentId);
             String username = input.get("username");
-            comment.addUserVote(username, "like");
+            Baloot.getInstance().voteComment(commentId, username, Vote.LIKE);
             return new ResponseEntity<>("The comment was successfully liked!", HttpStatus.OK);
         } catch (NotExistentComment e) {
-            return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+            return ErrorResponses.of(e, HttpStatus.NOT_FOUND);
         }
     }
 
@@ -31,12 +30,11 @@ public class CommentController {
     public ResponseEntity<String> dislikeComment(@PathVariable String id, @RequestBody Map<String, String> input) {
         int commentId = Integer.parseInt(id);
         try {
-            Comment comment = Baloot.getInstance().getCommentById(commentId);
             String username = input.get("username");
-            comment.addUserVote(username, "dislike");
+            Baloot.getInstance().voteComment(commentId, username, Vote.DISLIKE);
             return new ResponseEntity<>("The comment was successfully disliked!", HttpStatus.OK);
         } catch (NotExistentComment e) {
-            return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+            return ErrorResponses.of(e, HttpStatus.NOT_FOUND);
         }
 
     }
@@ -1,23 +1,85 @@
 package controllers;
 
 import service.Baloot;
+import service.CommodityQuery;
 import model.Comment;
 import model.Commodity;
 import model.User;
+import exceptions.InvalidPriceRange;
+import exceptions.MissingStartOrEndPrice;
 import exceptions.NotExistentCommodity;
 import exceptions.NotExistentUser;
+import utils.PageRequest;
+import database.CommoditySortField;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 @RestController
 public class CommoditiesController {
+    private final ObjectMapper objectMapper;
+
+    public CommoditiesController(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public record RatesRequest(String username, Map<String, Integer> rates) {
+    }
+
+    public record QueryRequest(String name, List<String> categories, String provider, Integer startPrice,
+                               Integer endPrice, boolean available, String sort, String order, String offset,
+                               String limit) {
+    }
+
     @GetMapping(value = "/commodities")
-    public ResponseEntity<ArrayList<Commodity>> getCommodities() {
-        return new ResponseEntity<>(Baloot.getInstance().getCommodities(), HttpStatus.OK);
+    public ResponseEntity<Collection<Commodity>> getCommodities(@RequestParam Map<String, String> params) {
+        try {
+            PageRequest page = PageRequest.fromMap(params);
+            if (page.isUnpaged())
+                return new ResponseEntity<>(Baloot.getInstance().getCommodities(), HttpStatus.OK);
+
+            return new ResponseEntity<>(Baloot.getInstance().getCommodities(page), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return ErrorResponses.of(e, null, HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @GetMapping(value = "/commodities/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamCommodities(@RequestParam Map<String, String> params) {
+        Stream<Commodity> commodities;
+        try {
+            commodities = Baloot.getInstance().streamCommodities(PageRequest.fromMap(params));
+        } catch (IllegalArgumentException e) {
+            return ErrorResponses.of(e, null, HttpStatus.BAD_REQUEST);
+        }
+
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+                 commodities) {
+                generator.writeStartArray();
+                for (Iterator<Commodity> it = commodities.iterator(); it.hasNext(); )
+                    generator.writeObject(it.next());
+                generator.writeEndArray();
+            }
+        };
+
+        return new ResponseEntity<>(body, HttpStatus.OK);
+    }
+
+    @GetMapping(value = "/commodities/batch")
+    public ResponseEntity<ArrayList<Commodity>> getCommoditiesByIds(@RequestParam List<String> ids) {
+        return new ResponseEntity<>(Baloot.getInstance().getCommoditiesByIds(ids), HttpStatus.OK);
     }
 
     @GetMapping(value = "/commodities/{id}")
@@ -26,7 +88,7 @@ public class CommoditiesController {
             Commodity commodity = Baloot.getInstance().getCommodityById(id);
             return new ResponseEntity<>(commodity, HttpStatus.OK);
         } catch (NotExistentCommodity e) {
-            return new ResponseEntity<>(null, HttpStatus.NOT_FOUND);
+            return ErrorResponses.of(e, null, HttpStatus.NOT_FOUND);
         }
     }
 
@@ -36,12 +98,27 @@ public class CommoditiesController {
             int rate = Integer.parseInt(input.get("rate"));
             String username = input.get("username");
             Commodity commodity = Baloot.getInstance().getCommodityById(id);
-            commodity.addRate(username, rate);
+            Baloot.getInstance().rateCommodity(commodity, username, rate);
             return new ResponseEntity<>("rate added successfully!", HttpStatus.OK);
         } catch (NotExistentCommodity e) {
-            return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+            return ErrorResponses.of(e, HttpStatus.NOT_FOUND);
         } catch (NumberFormatException e) {
-            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+            return ErrorResponses.of(e, HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @PostMapping(value = "/commodities/rate")
+    public ResponseEntity<String> rateCommodities(@RequestBody RatesRequest input) {
+        if (input.rates() == null)
+            return new ResponseEntity<>("rates cannot be null.", HttpStatus.BAD_REQUEST);
+
+        try {
+            Baloot.getInstance().rateCommodities(input.username(), input.rates());
+            return new ResponseEntity<>("rates added successfully!", HttpStatus.OK);
+        } catch (NotExistentCommodity e) {
+            return ErrorResponses.of(e, HttpStatus.NOT_FOUND);
+        } catch (IllegalArgumentException e) {
+            return ErrorResponses.of(e, HttpStatus.BAD_REQUEST);
         }
     }
 
@@ -74,25 +151,62 @@ public class CommoditiesController {
     public ResponseEntity<ArrayList<Commodity>> searchCommodities(@RequestBody Map<String, String> input) {
         String searchOption = input.get("searchOption");
         String searchValue = input.get("searchValue");
+        boolean availableOnly = Boolean.parseBoolean(input.get("available"));
 
-        ArrayList<Commodity> commodities = switch (searchOption) {
-            case "name" -> Baloot.getInstance().filterCommoditiesByName(searchValue);
-            case "category" -> Baloot.getInstance().filterCommoditiesByCategory(searchValue);
-            case "provider" -> Baloot.getInstance().filterCommoditiesByProviderName(searchValue);
-            default -> new ArrayList<>();
-        };
+        PageRequest page;
+        try {
+            page = PageRequest.fromMap(input);
+        } catch (IllegalArgumentException e) {
+            return ErrorResponses.of(e, new ArrayList<>(), HttpStatus.BAD_REQUEST);
+        }
+        int prefixLimit = (int) Math.min((long) page.getOffset() + page.getLimit(), Integer.MAX_VALUE);
+        int nameLimit = page.getSort() == null && !availableOnly ? prefixLimit : Integer.MAX_VALUE;
+        int priceLimit = page.getSort() == null || page.getSort() == CommoditySortField.PRICE && !page.isDescending()
+                ? prefixLimit : Integer.MAX_VALUE;
 
-        return new ResponseEntity<>(commodities, HttpStatus.OK);
+        List<Commodity> commodities;
+        try {
+            commodities = switch (searchOption) {
+                case "name" -> Baloot.getInstance().filterCommoditiesByName(searchValue, nameLimit);
+                case "category" -> Baloot.getInstance().filterCommoditiesByCategory(searchValue);
+                case "provider" -> Baloot.getInstance().filterCommoditiesByProviderName(searchValue);
+                case "price" -> Baloot.getInstance().filterCommoditiesByPriceRange(parsePrice(input.get("startPrice")),
+                        parsePrice(input.get("endPrice")), availableOnly, priceLimit);
+                default -> new ArrayList<>();
+            };
+        } catch (MissingStartOrEndPrice | InvalidPriceRange | NumberFormatException e) {
+            return ErrorResponses.of(e, new ArrayList<>(), HttpStatus.BAD_REQUEST);
+        }
+        if (availableOnly)
+            commodities = commodities.stream().filter(commodity -> commodity.getInStock() > 0).toList();
+
+        return new ResponseEntity<>(Baloot.getInstance().sortAndPage(commodities, page), HttpStatus.OK);
+    }
+
+    private static Integer parsePrice(String value) {
+        return value == null ? null : Integer.valueOf(value.trim());
+    }
+
+    @PostMapping(value = "/commodities/query")
+    public ResponseEntity<ArrayList<Commodity>> queryCommodities(@RequestBody QueryRequest input) {
+        try {
+            PageRequest page = new PageRequest(input.sort(), input.order(), null, input.offset(), input.limit());
+            CommodityQuery query = new CommodityQuery(input.name(), input.categories(), input.provider(),
+                    input.startPrice(), input.endPrice(), input.available());
+            return new ResponseEntity<>(Baloot.getInstance().queryCommodities(query, page), HttpStatus.OK);
+        } catch (MissingStartOrEndPrice | InvalidPriceRange | IllegalArgumentException e) {
+            return ErrorResponses.of(e, new ArrayList<>(), HttpStatus.BAD_REQUEST);
+        }
     }
 
     @GetMapping(value = "/commodities/{id}/suggested")
-    public ResponseEntity<ArrayList<Commodity>> getSuggestedCommodities(@PathVariable String id) {
+    public ResponseEntity<List<Commodity>> getSuggestedCommodities(@PathVariable String id) {
         try {
             Commodity commodity = Baloot.getInstance().getCommodityById(id);
-            ArrayList<Commodity> suggestedCommodities = Baloot.getInstance().suggestSimilarCommodities(commodity);
+            List<Commodity> suggestedCommodities = Baloot.getInstance().suggestSimilarCommodities(commodity);
             return new ResponseEntity<>(suggestedCommodities, HttpStatus.OK);
-        } catch (NotExistentCommodity ignored) {
-            return new ResponseEntity<>(new ArrayList<>(), HttpStatus.NOT_FOUND);
+        } catch (NotExistentCommodity e) {
+            return ErrorResponses.of(e, List.of(), HttpStatus.NOT_FOUND);
         }
     }
 
@@ -0,0 +1,30 @@
+package controllers;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+// Builds the error response for an exception a controller caught, counting it by class.
+final class ErrorResponses {
+    private static final ClassValue<Counter> counters = new ClassValue<>() {
+        @Override
+        protected Counter computeValue(Class<?> type) {
+            return Counter.builder("baloot.exceptions")
+                    .tag("type", type.getSimpleName())
+                    .register(Metrics.globalRegistry);
+        }
+    };
+
+    private ErrorResponses() {
+    }
+
+    static ResponseEntity<String> of(Exception e, HttpStatus status) {
+        return of(e, e.getMessage(), status);
+    }
+
+    static <T> ResponseEntity<T> of(Exception e, T body, HttpStatus status) {
+        counters.get(e.getClass()).increment();
+        return new ResponseEntity<>(body, status);
+    }
+}
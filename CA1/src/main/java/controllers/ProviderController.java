@@ -4,29 +4,44 @@ import service.Baloot;
 import model.Commodity;
 import model.Provider;
 import exceptions.NotExistentProvider;
+import utils.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 @RestController
 public class ProviderController {
+    @GetMapping(value = "/providers/batch")
+    public ResponseEntity<ArrayList<Provider>> getProvidersByIds(@RequestParam List<String> ids) {
+        return new ResponseEntity<>(Baloot.getInstance().getProvidersByIds(ids), HttpStatus.OK);
+    }
+
     @GetMapping(value = "/providers/{id}")
     public ResponseEntity<Provider> getProvider(@PathVariable String id) {
         try {
             Provider provider = Baloot.getInstance().getProviderById(id);
             return new ResponseEntity<>(provider, HttpStatus.OK);
         } catch (NotExistentProvider e) {
-            return new ResponseEntity<>(null, HttpStatus.NOT_FOUND);
+            return ErrorResponses.of(e, null, HttpStatus.NOT_FOUND);
         }
     }
 
     @GetMapping(value = "/providers/{id}/commodities")
-    public ResponseEntity<ArrayList<Commodity>> getProvidedCommodities(@PathVariable String id) {
-        ArrayList<Commodity> commodities = Baloot.getInstance().getCommoditiesProvidedByProvider(id);
-        return new ResponseEntity<>(commodities, HttpStatus.OK);
+    public ResponseEntity<ArrayList<Commodity>> getProvidedCommodities(@PathVariable String id,
+                                                                       @RequestParam Map<String, String> params) {
+        try {
+            PageRequest page = PageRequest.fromMap(params);
+            ArrayList<Commodity> commodities = Baloot.getInstance().getCommoditiesProvidedByProvider(id);
+            return new ResponseEntity<>(Baloot.getInstance().sortAndPage(commodities, page), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return ErrorResponses.of(e, new ArrayList<>(), HttpStatus.BAD_REQUEST);
+        }
     }
 }
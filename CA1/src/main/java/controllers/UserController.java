@@ -8,17 +8,24 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 @RestController
 public class UserController {
+    @GetMapping(value = "/users/batch")
+    public ResponseEntity<ArrayList<User>> getUsersByIds(@RequestParam List<String> ids) {
+        return new ResponseEntity<>(Baloot.getInstance().getUsersByIds(ids), HttpStatus.OK);
+    }
+
     @GetMapping(value = "/users/{id}")
     public ResponseEntity<User> getUser(@PathVariable String id) {
         try {
             User user = Baloot.getInstance().getUserById(id);
             return new ResponseEntity<>(user, HttpStatus.OK);
         } catch (NotExistentUser e) {
-            return new ResponseEntity<>(null, HttpStatus.NOT_FOUND);
+            return ErrorResponses.of(e, null, HttpStatus.NOT_FOUND);
         }
     }
 
@@ -26,15 +33,14 @@ public class UserController {
     public ResponseEntity<String> addCredit(@PathVariable String id, @RequestBody Map<String, String> input) {
         try {
             float credit = Float.parseFloat(input.get("credit"));
-            Baloot.getInstance().getUserById(id).addCredit(credit);
+            Baloot.getInstance().addCredit(id, credit);
             return new ResponseEntity<>("credit added successfully!", HttpStatus.OK);
         } catch (InvalidCreditRange e) {
-            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+            return ErrorResponses.of(e, HttpStatus.BAD_REQUEST);
         } catch (NotExistentUser e) {
-            return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+            return ErrorResponses.of(e, HttpStatus.NOT_FOUND);
         } catch (NumberFormatException e) {
-            return new ResponseEntity<>("Please enter a valid number for the credit amount."
-                    , HttpStatus.BAD_REQUEST);
+            return ErrorResponses.of(e, "Please enter a valid number for the credit amount.", HttpStatus.BAD_REQUEST);
         }
 
 
@@ -0,0 +1,31 @@
+package database;
+
+import model.Commodity;
+import model.Provider;
+
+import java.util.Collection;
+
+public interface CatalogListener {
+    // All commodities were removed.
+    default void onCatalogReset() {
+    }
+
+    // All providers were removed; commodities are left in place.
+    default void onProvidersReset() {
+    }
+
+    default void onProviderAdded(Provider provider) {
+    }
+
+    default void onCommodityAdded(Commodity commodity) {
+    }
+
+    default void onCommodityChanged(Commodity commodity) {
+    }
+
+    default void onStockChanged(Commodity commodity) {
+    }
+
+    default void onCategoriesChanged(Commodity commodity, Collection<String> oldCategories) {
+    }
+}
@@ -0,0 +1,110 @@
+package database;
+
+import model.Commodity;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class CommodityNameIndex {
+    public static final int GRAM_LENGTH = 3;
+
+    private final Map<String, Set<Commodity>> postings = new ConcurrentHashMap<>();
+    private final Collection<Commodity> allCommodities;
+
+    public CommodityNameIndex(Collection<Commodity> allCommodities) {
+        this.allCommodities = allCommodities;
+    }
+
+    public void add(Commodity commodity) {
+        if (commodity.getName() == null)
+            return;
+
+        for (String gram : grams(commodity.getName()))
+            postings.computeIfAbsent(gram, k -> ConcurrentHashMap.newKeySet()).add(commodity);
+    }
+
+    public void clear() {
+        postings.clear();
+    }
+
+    public List<Commodity> search(String query, int limit) {
+        if (query == null || limit <= 0)
+            return new ArrayList<>();
+
+        Comparator<Commodity> ranking = ranking(query);
+        PriorityQueue<Commodity> best = new PriorityQueue<>(ranking.reversed());
+        for (Commodity commodity : candidates(query)) {
+            if (!matches(commodity, query))
+                continue;
+
+            best.add(commodity);
+            if (best.size() > limit)
+                best.poll();
+        }
+
+        List<Commodity> result = new ArrayList<>(best);
+        result.sort(ranking);
+        return result;
+    }
+
+    public List<Commodity> matches(String query) {
+        if (query == null)
+            return new ArrayList<>();
+
+        List<Commodity> result = new ArrayList<>();
+        for (Commodity commodity : candidates(query))
+            if (matches(commodity, query))
+                result.add(commodity);
+
+        return result;
+    }
+
+    public static boolean matches(Commodity commodity, String query) {
+        return commodity.getName() != null && commodity.getName().contains(query);
+    }
+
+    private Collection<Commodity> candidates(String query) {
+        if (query.length() < GRAM_LENGTH)
+            return allCommodities;
+
+        List<Set<Commodity>> lists = new ArrayList<>();
+        for (String gram : grams(query)) {
+            Set<Commodity> posting = postings.get(gram);
+            if (posting == null)
+                return List.of();
+            lists.add(posting);
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+
+        Set<Commodity> smallest = lists.get(0);
+        List<Set<Commodity>> rest = lists.subList(1, lists.size());
+        List<Commodity> result = new ArrayList<>();
+        for (Commodity commodity : smallest)
+            if (rest.stream().allMatch(posting -> posting.contains(commodity)))
+                result.add(commodity);
+
+        return result;
+    }
+
+    private static Comparator<Commodity> ranking(String query) {
+        return Comparator.<Commodity>comparingInt(commodity -> commodity.getName().equals(query) ? 0 : 1)
+                .thenComparingInt(commodity -> commodity.getName().indexOf(query))
+                .thenComparingInt(commodity -> commodity.getName().length())
+                .thenComparing(Commodity::getId);
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++)
+            grams.add(text.substring(i, i + GRAM_LENGTH));
+
+        return grams;
+    }
+}
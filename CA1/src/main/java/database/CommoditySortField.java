@@ -0,0 +1,34 @@
+package database;
+
+import model.Commodity;
+
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.function.Function;
+
+public enum CommoditySortField {
+    PRICE(Commodity::getPrice),
+    RATING(Commodity::getRating),
+    NAME(Commodity::getName);
+
+    private final Function<Commodity, Comparable<?>> extractor;
+
+    CommoditySortField(Function<Commodity, Comparable<?>> extractor) {
+        this.extractor = extractor;
+    }
+
+    public Comparable<?> extract(Commodity commodity) {
+        return extractor.apply(commodity);
+    }
+
+    @SuppressWarnings("unchecked")
+    public Comparator<Commodity> comparator() {
+        return Comparator.<Commodity, Comparable<Object>>comparing(commodity -> (Comparable<Object>) extract(commodity),
+                        Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparing(Commodity::getId);
+    }
+
+    public static CommoditySortField fromName(String name) {
+        return name == null ? null : valueOf(name.toUpperCase(Locale.ROOT));
+    }
+}
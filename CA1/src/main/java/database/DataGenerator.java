@@ -0,0 +1,149 @@
+package database;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+public class DataGenerator {
+    private static final String[] BRANDS = {"Apex", "Nova", "Zen", "Orbit", "Pixel", "Terra", "Vertex", "Lumen",
+            "Echo", "Atlas", "Quantum", "Nimbus"};
+    private static final String[] PRODUCTS = {"Phone", "Laptop", "Tablet", "Watch", "Camera", "Speaker", "Charger",
+            "Monitor", "Keyboard", "Mouse", "Router", "Console", "Drone", "Printer", "Headset", "Blender", "Kettle",
+            "Backpack", "Sneakers", "Jacket"};
+    private static final String[] QUALIFIERS = {"Pro", "Max", "Mini", "Lite", "Plus", "Ultra", "Air", "Go", "X", "S"};
+    private static final int CATEGORY_COUNT = 200;
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final Path outputDirectory;
+    private final long seed;
+
+    public DataGenerator(Path outputDirectory, long seed) {
+        this.outputDirectory = outputDirectory;
+        this.seed = seed;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2)
+            options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+
+        long users = Long.parseLong(options.getOrDefault("users", "1000"));
+        long providers = Long.parseLong(options.getOrDefault("providers", "100"));
+        long commodities = Long.parseLong(options.getOrDefault("commodities", "10000"));
+        long comments = Long.parseLong(options.getOrDefault("comments", "10000"));
+        Path output = Path.of(options.getOrDefault("out", "generated-data"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+
+        Files.createDirectories(output);
+        DataGenerator generator = new DataGenerator(output, seed);
+        generator.writeUsers(users);
+        generator.writeProviders(providers);
+        generator.writeCommodities(commodities, providers);
+        generator.writeComments(comments, users, commodities);
+    }
+
+    private interface RecordWriter {
+        void write(JsonGenerator generator, long index, SplittableRandom random) throws IOException;
+    }
+
+    private void writeArray(String fileName, long count, RecordWriter writer) throws IOException {
+        SplittableRandom random = new SplittableRandom(seed ^ fileName.hashCode());
+        try (JsonGenerator generator = jsonFactory.createGenerator(outputDirectory.resolve(fileName).toFile(),
+                JsonEncoding.UTF8)) {
+            generator.writeStartArray();
+            for (long i = 0; i < count; i++) {
+                generator.writeStartObject();
+                writer.write(generator, i, random);
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    public void writeUsers(long count) throws IOException {
+        writeArray("users.json", count, (generator, i, random) -> {
+            generator.writeStringField("username", "user" + i);
+            generator.writeStringField("password", Long.toHexString(random.nextLong()));
+            generator.writeStringField("email", "user" + i + "@mail.com");
+            generator.writeStringField("birthDate", String.format("%d-%02d-%02d", 1950 + random.nextInt(55),
+                    1 + random.nextInt(12), 1 + random.nextInt(28)));
+            generator.writeStringField("address", "Street " + random.nextInt(1000) + ", Tehran, Iran");
+            generator.writeNumberField("credit", Math.round(logNormal(random, 7, 1.5) * 100) / 100.0);
+        });
+    }
+
+    public void writeProviders(long count) throws IOException {
+        writeArray("providers.json", count, (generator, i, random) -> {
+            generator.writeStringField("id", String.valueOf(i));
+            generator.writeStringField("name", BRANDS[(int) (i % BRANDS.length)] + " " + i);
+            generator.writeStringField("registryDate", String.format("%d-%02d-%02d", 1980 + random.nextInt(44),
+                    1 + random.nextInt(12), 1 + random.nextInt(28)));
+            generator.writeStringField("image", "");
+        });
+    }
+
+    public void writeCommodities(long count, long providers) throws IOException {
+        writeArray("commodities.json", count, (generator, i, random) -> {
+            generator.writeStringField("id", String.valueOf(i));
+            generator.writeStringField("name", BRANDS[random.nextInt(BRANDS.length)] + " "
+                    + PRODUCTS[random.nextInt(PRODUCTS.length)] + " " + QUALIFIERS[random.nextInt(QUALIFIERS.length)]
+                    + " " + i);
+            generator.writeStringField("providerId", String.valueOf(skewed(random, providers)));
+            generator.writeNumberField("price", (int) Math.max(1, logNormal(random, 4, 1.2)));
+
+            generator.writeArrayFieldStart("categories");
+            long[] categories = new long[1 + random.nextInt(3)];
+            for (int c = 0; c < categories.length; c++) {
+                categories[c] = skewed(random, CATEGORY_COUNT);
+                if (!contains(categories, c, categories[c]))
+                    generator.writeString("category" + categories[c]);
+            }
+            generator.writeEndArray();
+
+            double rating = Math.min(10, Math.max(1, 7.5 + 1.3 * random.nextGaussian()));
+            generator.writeNumberField("rating", Math.round(rating * 10) / 10.0);
+            generator.writeNumberField("inStock", random.nextInt(10) == 0 ? 0 : 1 + random.nextInt(500));
+            generator.writeStringField("image", "");
+        });
+    }
+
+    public void writeComments(long count, long users, long commodities) throws IOException {
+        writeArray("comments.json", count, (generator, i, random) -> {
+            long user = random.nextLong(users);
+            generator.writeStringField("userEmail", "user" + user + "@mail.com");
+            generator.writeStringField("username", "user" + user);
+            generator.writeNumberField("commodityId", skewed(random, commodities));
+            generator.writeStringField("text", "Comment " + i + " about this product.");
+            generator.writeStringField("date", String.format("%d-%02d-%02d", 2015 + random.nextInt(9),
+                    1 + random.nextInt(12), 1 + random.nextInt(28)));
+        });
+    }
+
+    // Log-uniform draw in [0, bound): roughly Zipfian, so a few ids are very popular and most are rare.
+    private static long skewed(SplittableRandom random, long bound) {
+        if (bound <= 1)
+            return 0;
+
+        return Math.min(bound - 1, (long) Math.pow(bound, random.nextDouble()) - 1);
+    }
+
+    private static boolean contains(long[] values, int length, long value) {
+        for (int i = 0; i < length; i++)
+            if (values[i] == value)
+                return true;
+
+        return false;
+    }
+
+    private static double logNormal(SplittableRandom random, double mu, double sigma) {
+        return Math.exp(mu + sigma * random.nextGaussian());
+    }
+}
@@ -1,6 +1,7 @@
 package database;
 
-import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import model.Comment;
 import model.Commodity;
@@ -8,57 +9,114 @@ import model.Provider;
 import model.User;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 
 
 public class DataParser {
     private final ObjectMapper objectMapper = new ObjectMapper();
-    private final String dataPath = "src/main/java/database/data/";
+    public static final String DEFAULT_DATA_PATH = "src/main/java/database/data/";
+
+    private final String dataPath;
     Database database;
 
+    private interface Loader {
+        void load() throws IOException;
+    }
+
     public DataParser(Database database) {
+        this(database, DEFAULT_DATA_PATH);
+    }
+
+    public DataParser(Database database, String dataPath) {
         this.database = database;
+        this.dataPath = dataPath.endsWith("/") ? dataPath : dataPath + "/";
     }
 
-    public void getUsersList() throws IOException {
-        String filePath = dataPath + "users.json";
-        String usersString = new String(Files.readAllBytes(Paths.get(filePath)));
+    // Everything is cleared up front: the loaders run concurrently, so a clear inside one of them could wipe rows or
+    // listener state another loader has already written.
+    public void getAllLists() throws IOException {
+        database.clearUsers();
+        database.clearProviders();
+        database.clearCommodities();
+        database.clearComments();
 
-        List<User> userList = objectMapper.readValue(usersString, new TypeReference<>() {
-        });
-        database.setUsers((ArrayList<User>) userList);
+        List<Loader> loaders = List.of(this::loadUsers, this::loadProviders, this::loadCommodities, this::loadComments);
+        ExecutorService executor = Executors.newFixedThreadPool(loaders.size());
+        try {
+            CompletableFuture.allOf(loaders.stream()
+                    .map(loader -> CompletableFuture.runAsync(() -> {
+                        try {
+                            loader.load();
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }, executor))
+                    .toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException cause)
+                throw cause.getCause();
+            throw e;
+        } finally {
+            executor.shutdown();
+        }
     }
 
-    public void getProvidersList() throws IOException {
-        String filePath = dataPath + "providers.json";
-        String providersString = new String(Files.readAllBytes(Paths.get(filePath)));
+    public void getUsersList() throws IOException {
+        database.clearUsers();
+        loadUsers();
+    }
 
-        List<Provider> providerList = objectMapper.readValue(providersString, new TypeReference<>() {
-        });
-        database.setProviders((ArrayList<Provider>) providerList);
+    public void getProvidersList() throws IOException {
+        database.clearProviders();
+        loadProviders();
     }
 
     public void getCommoditiesList() throws IOException {
-        String filePath = dataPath + "commodities.json";
-        String commoditiesString = new String(Files.readAllBytes(Paths.get(filePath)));
-
-        List<Commodity> commodityList = objectMapper.readValue(commoditiesString, new TypeReference<>() {
-        });
-        database.setCommodities((ArrayList<Commodity>) commodityList);
+        database.clearCommodities();
+        loadCommodities();
     }
 
     public void getCommentsList() throws IOException {
-        String filePath = dataPath + "comments.json";
-        String commentsString = new String(Files.readAllBytes(Paths.get(filePath)));
+        database.clearComments();
+        loadComments();
+    }
 
-        List<Comment> commentsList = objectMapper.readValue(commentsString, new TypeReference<>() {
+    private void loadUsers() throws IOException {
+        streamList("users.json", User.class, database::addUser);
+    }
+
+    private void loadProviders() throws IOException {
+        streamList("providers.json", Provider.class, database::addProvider);
+    }
+
+    private void loadCommodities() throws IOException {
+        streamList("commodities.json", Commodity.class, database::addCommodity);
+    }
+
+    private void loadComments() throws IOException {
+        streamList("comments.json", Comment.class, comment -> {
+            comment.setId(database.nextCommentId());
+            database.addComment(comment);
         });
-        database.setComments((ArrayList<Comment>) commentsList);
+    }
+
+    private <T> void streamList(String fileName, Class<T> type, Consumer<T> consumer) throws IOException {
+        try (InputStream inputStream = Files.newInputStream(Paths.get(dataPath + fileName));
+             JsonParser parser = objectMapper.getFactory().createParser(inputStream)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY)
+                throw new IOException(fileName + " must contain a JSON array");
 
-        for (Comment comment : commentsList)
-            comment.setId(commentsList.indexOf(comment));
+            while (parser.nextToken() == JsonToken.START_OBJECT)
+                consumer.accept(objectMapper.readValue(parser, type));
+        }
     }
 }
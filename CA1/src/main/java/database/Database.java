@@ -4,38 +4,340 @@ import model.Comment;
 import model.Commodity;
 import model.Provider;
 import model.User;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import lombok.AccessLevel;
 import lombok.Getter;
-import lombok.Setter;
+import utils.IdTable;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 @Getter
-@Setter
 public class Database {
     @Getter
     private static final Database instance = new Database();
 
     private Database() {
+        registerSizeGauge("users", usersById);
+        registerSizeGauge("providers", providersById);
+        registerSizeGauge("commodities", commoditiesById);
+        registerSizeGauge("comments", commentsById);
     }
 
-    private ArrayList<User> users = new ArrayList<>();
-    private ArrayList<Provider> providers = new ArrayList<>();
-    private ArrayList<Commodity> commodities = new ArrayList<>();
-    private ArrayList<Comment> comments = new ArrayList<>();
+    private static void registerSizeGauge(String collection, Map<?, ?> index) {
+        Gauge.builder("baloot.database.size", index, Map::size)
+                .tag("collection", collection)
+                .register(Metrics.globalRegistry);
+    }
+
+    private final Queue<User> users = new ConcurrentLinkedQueue<>();
+    private final Queue<Provider> providers = new ConcurrentLinkedQueue<>();
+    private final Queue<Commodity> commodities = new ConcurrentLinkedQueue<>();
+    private final Queue<Comment> comments = new ConcurrentLinkedQueue<>();
+
+    @Getter(AccessLevel.NONE)
+    private final Map<String, User> usersById = new ConcurrentHashMap<>();
+    @Getter(AccessLevel.NONE)
+    private final Map<String, Provider> providersById = new ConcurrentHashMap<>();
+    @Getter(AccessLevel.NONE)
+    private final Map<String, Commodity> commoditiesById = new ConcurrentHashMap<>();
+    @Getter(AccessLevel.NONE)
+    private final Map<Integer, Comment> commentsById = new ConcurrentHashMap<>();
+
+    @Getter(AccessLevel.NONE)
+    private volatile AtomicReferenceArray<Commodity> commoditiesByIndex = new AtomicReferenceArray<>(1024);
+    @Getter(AccessLevel.NONE)
+    private final ReentrantLock commoditiesByIndexLock = new ReentrantLock();
+
+    @Getter(AccessLevel.NONE)
+    private final Map<String, Provider> providersByName = new ConcurrentHashMap<>();
+    @Getter(AccessLevel.NONE)
+    private final Map<String, Queue<Commodity>> commoditiesByProvider = new ConcurrentHashMap<>();
+    @Getter(AccessLevel.NONE)
+    private final Map<String, Queue<Commodity>> commoditiesByCategory = new ConcurrentHashMap<>();
+    @Getter(AccessLevel.NONE)
+    private final Map<Integer, Queue<Comment>> commentsByCommodity = new ConcurrentHashMap<>();
+
+    @Getter(AccessLevel.NONE)
+    private final CommodityNameIndex commodityNameIndex = new CommodityNameIndex(commodities);
+
+    @Getter(AccessLevel.NONE)
+    private final Map<CommoditySortField, SortedCommodityView> sortedCommodities = new EnumMap<>(
+            Arrays.stream(CommoditySortField.values())
+                    .collect(Collectors.toMap(Function.identity(), SortedCommodityView::new)));
+
+    @Getter(AccessLevel.NONE)
+    private final SortedCommodityView availableByPrice =
+            new SortedCommodityView(CommoditySortField.PRICE, commodity -> commodity.getInStock() > 0);
+
+    @Getter(AccessLevel.NONE)
+    private final List<CatalogListener> catalogListeners = new CopyOnWriteArrayList<>();
+
+    @Getter(AccessLevel.NONE)
+    private final AtomicInteger nextCommentId = new AtomicInteger();
+
+    public void setUsers(List<User> users) {
+        clearUsers();
+        users.forEach(this::addUser);
+    }
+
+    public void setProviders(List<Provider> providers) {
+        clearProviders();
+        providers.forEach(this::addProvider);
+    }
+
+    public void setCommodities(List<Commodity> commodities) {
+        clearCommodities();
+        commodities.forEach(this::addCommodity);
+    }
+
+    public void setComments(List<Comment> comments) {
+        clearComments();
+        comments.forEach(this::addComment);
+    }
+
+    public void clearUsers() {
+        users.clear();
+        usersById.clear();
+    }
+
+    public void clearProviders() {
+        providers.clear();
+        providersById.clear();
+        providersByName.clear();
+        catalogListeners.forEach(CatalogListener::onProvidersReset);
+    }
+
+    public void clearCommodities() {
+        commodities.clear();
+        commoditiesById.clear();
+        commoditiesByIndexLock.lock();
+        try {
+            commoditiesByIndex = new AtomicReferenceArray<>(commoditiesByIndex.length());
+        } finally {
+            commoditiesByIndexLock.unlock();
+        }
+        commoditiesByProvider.clear();
+        commoditiesByCategory.clear();
+        commodityNameIndex.clear();
+        sortedCommodities.values().forEach(SortedCommodityView::clear);
+        availableByPrice.clear();
+        Commodity.invalidatePrices();
+        catalogListeners.forEach(CatalogListener::onCatalogReset);
+    }
+
+    public void clearComments() {
+        comments.clear();
+        commentsById.clear();
+        commentsByCommodity.clear();
+        nextCommentId.set(0);
+    }
+
+    public boolean addUser(User user) {
+        if (user.getUsername() == null || usersById.putIfAbsent(user.getUsername(), user) != null)
+            return false;
 
-    public void addUser(User user) {
         users.add(user);
+        return true;
     }
 
     public void addProvider(Provider provider) {
+        if (provider.getId() == null || providersById.putIfAbsent(provider.getId(), provider) != null)
+            return;
+
         providers.add(provider);
+        if (provider.getName() != null)
+            providersByName.putIfAbsent(provider.getName(), provider);
+        catalogListeners.forEach(listener -> listener.onProviderAdded(provider));
     }
 
     public void addCommodity(Commodity commodity) {
+        if (commodity.getId() == null || commoditiesById.putIfAbsent(commodity.getId(), commodity) != null)
+            return;
+
         commodities.add(commodity);
+        indexCommodity(IdTable.commodities.intern(commodity.getId()), commodity);
+        if (commodity.getProviderId() != null)
+            commoditiesByProvider.computeIfAbsent(commodity.getProviderId(), k -> new ConcurrentLinkedQueue<>())
+                    .add(commodity);
+        for (String category : new HashSet<>(commodity.getCategories()))
+            if (category != null)
+                commoditiesByCategory.computeIfAbsent(category, k -> new ConcurrentLinkedQueue<>()).add(commodity);
+        commodityNameIndex.add(commodity);
+        sortedCommodities.values().forEach(view -> view.put(commodity));
+        availableByPrice.put(commodity);
+        catalogListeners.forEach(listener -> listener.onCommodityAdded(commodity));
+    }
+
+    private void indexCommodity(int index, Commodity commodity) {
+        commoditiesByIndexLock.lock();
+        try {
+            AtomicReferenceArray<Commodity> current = commoditiesByIndex;
+            if (index >= current.length()) {
+                AtomicReferenceArray<Commodity> grown = new AtomicReferenceArray<>(Math.max(index + 1, current.length() * 2));
+                for (int i = 0; i < current.length(); i++)
+                    grown.set(i, current.get(i));
+                commoditiesByIndex = current = grown;
+            }
+            current.set(index, commodity);
+        } finally {
+            commoditiesByIndexLock.unlock();
+        }
     }
 
     public void addComment(Comment comment) {
+        if (commentsById.putIfAbsent(comment.getId(), comment) != null)
+            return;
+
         comments.add(comment);
+        nextCommentId.accumulateAndGet(comment.getId() + 1, Math::max);
+        commentsByCommodity.computeIfAbsent(comment.getCommodityId(), k -> new ConcurrentLinkedQueue<>())
+                .add(comment);
+    }
+
+    public void refreshCommodity(Commodity commodity) {
+        if (findCommodity(commodity.getId()) != commodity)
+            return;
+
+        sortedCommodities.values().forEach(view -> view.put(commodity));
+        availableByPrice.put(commodity);
+        catalogListeners.forEach(listener -> listener.onCommodityChanged(commodity));
+    }
+
+    // Prices key the sorted views, so a stored commodity's price must change here rather than through the commodity.
+    public void updatePrice(Commodity commodity, int price) {
+        commodity.mutex().lock();
+        try {
+            commodity.changePrice(price);
+            refreshCommodity(commodity);
+        } finally {
+            commodity.mutex().unlock();
+        }
+    }
+
+    public void stockChanged(Commodity commodity) {
+        if (findCommodity(commodity.getId()) != commodity)
+            return;
+
+        availableByPrice.put(commodity);
+        catalogListeners.forEach(listener -> listener.onStockChanged(commodity));
+    }
+
+    // Only the commodity's own lock is needed: the category queues are concurrent, so updates to different
+    // commodities run in parallel.
+    public void updateCategories(Commodity commodity, List<String> categories) {
+        if (findCommodity(commodity.getId()) != commodity)
+            return;
+
+        List<String> oldCategories;
+        commodity.mutex().lock();
+        try {
+            oldCategories = commodity.getCategories();
+            for (String category : new HashSet<>(oldCategories))
+                if (category != null && commoditiesByCategory.containsKey(category))
+                    commoditiesByCategory.get(category).remove(commodity);
+
+            commodity.setCategories(new ArrayList<>(categories));
+            for (String category : new HashSet<>(categories))
+                if (category != null)
+                    commoditiesByCategory.computeIfAbsent(category, k -> new ConcurrentLinkedQueue<>()).add(commodity);
+
+            catalogListeners.forEach(listener -> listener.onCategoriesChanged(commodity, oldCategories));
+        } finally {
+            commodity.mutex().unlock();
+        }
+    }
+
+    public void addCatalogListener(CatalogListener listener) {
+        catalogListeners.add(listener);
+    }
+
+    public int nextCommentId() {
+        return nextCommentId.getAndIncrement();
+    }
+
+    public User findUser(String username) {
+        return username == null ? null : usersById.get(username);
+    }
+
+    public Provider findProvider(String providerId) {
+        return providerId == null ? null : providersById.get(providerId);
+    }
+
+    public Commodity findCommodity(String commodityId) {
+        return commodityId == null ? null : commoditiesById.get(commodityId);
+    }
+
+    // Looks a commodity up by its IdTable.commodities index.
+    public Commodity findCommodityByIndex(int index) {
+        AtomicReferenceArray<Commodity> current = commoditiesByIndex;
+        return index < current.length() ? current.get(index) : null;
+    }
+
+    public Comment findComment(int commentId) {
+        return commentsById.get(commentId);
+    }
+
+    public Provider findProviderByName(String name) {
+        return name == null ? null : providersByName.get(name);
+    }
+
+    public Collection<Commodity> findCommoditiesByProvider(String providerId) {
+        Queue<Commodity> result = providerId == null ? null : commoditiesByProvider.get(providerId);
+        return result == null ? List.of() : result;
+    }
+
+    public Collection<Commodity> findCommoditiesByCategory(String category) {
+        Queue<Commodity> result = category == null ? null : commoditiesByCategory.get(category);
+        return result == null ? List.of() : result;
+    }
+
+    public List<Commodity> searchCommoditiesByName(String query, int limit) {
+        return commodityNameIndex.search(query, limit);
+    }
+
+    public List<Commodity> findCommoditiesByName(String query) {
+        return commodityNameIndex.matches(query);
+    }
+
+    // Catalog order is IdTable.commodities index order, so a cursor resumes with a single lookup.
+    public Stream<Commodity> streamCommodities(String afterId) {
+        AtomicReferenceArray<Commodity> current = commoditiesByIndex;
+        int from = afterId == null ? 0 : IdTable.commodities.intern(afterId) + 1;
+        return IntStream.range(Math.min(from, current.length()), current.length())
+                .mapToObj(current::get)
+                .filter(Objects::nonNull);
+    }
+
+    public Stream<Commodity> streamCommodities(CommoditySortField sort, boolean descending, String afterId) {
+        return sortedCommodities.get(sort).stream(descending, afterId);
+    }
+
+    public Stream<Commodity> streamCommoditiesByPrice(int startPrice, int endPrice, boolean availableOnly) {
+        SortedCommodityView view = availableOnly ? availableByPrice : sortedCommodities.get(CommoditySortField.PRICE);
+        return view.range(startPrice, endPrice);
+    }
+
+    public Collection<Comment> findCommentsByCommodity(int commodityId) {
+        Queue<Comment> result = commentsByCommodity.get(commodityId);
+        return result == null ? List.of() : result;
     }
 }
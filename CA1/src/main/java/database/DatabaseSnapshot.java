@@ -0,0 +1,319 @@
+package database;
+
+import model.Comment;
+import model.Commodity;
+import model.Provider;
+import model.User;
+import model.Vote;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class DatabaseSnapshot {
+    private static final long MAGIC = 0x42414c4f4f54534eL;
+    private static final int VERSION = 3;
+    private static final byte RECORD = 1;
+    private static final byte END_OF_SECTION = 0;
+
+    private final Database database;
+
+    public DatabaseSnapshot(Database database) {
+        this.database = database;
+    }
+
+    public void write(Path path, long lastLsn) throws IOException {
+        capture(path, lastLsn);
+        publish(path);
+    }
+
+    // Serializes the tables next to path without syncing them; the caller must keep the tables still meanwhile.
+    public void capture(Path path, long lastLsn) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(temporary(path)), 1 << 16))) {
+            out.writeLong(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(lastLsn);
+
+            writeSection(out, database.getUsers(), this::writeUser);
+            writeSection(out, database.getProviders(), this::writeProvider);
+            writeSection(out, database.getCommodities(), this::writeCommodity);
+            writeSection(out, database.getComments(), this::writeComment);
+        }
+    }
+
+    // Syncs a captured snapshot and moves it over path; safe to run while the tables change again.
+    public static void publish(Path path) throws IOException {
+        Path temporary = temporary(path);
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static Path temporary(Path path) {
+        return path.resolveSibling(path.getFileName() + ".tmp");
+    }
+
+    public long read(Path path) throws IOException {
+        try (MappedInput in = new MappedInput(path)) {
+            if (in.getLong() != MAGIC || in.getInt() != VERSION)
+                throw new IOException(path + " is not a Baloot snapshot");
+            long lastLsn = in.getLong();
+
+            database.clearUsers();
+            database.clearProviders();
+            database.clearCommodities();
+            database.clearComments();
+
+            while (in.get() == RECORD)
+                database.addUser(readUser(in));
+            while (in.get() == RECORD)
+                database.addProvider(readProvider(in));
+            while (in.get() == RECORD)
+                database.addCommodity(readCommodity(in));
+            while (in.get() == RECORD)
+                database.addComment(readComment(in));
+
+            return lastLsn;
+        }
+    }
+
+    private interface RecordWriter<T> {
+        void write(DataOutputStream out, T record) throws IOException;
+    }
+
+    private static <T> void writeSection(DataOutputStream out, Collection<T> records, RecordWriter<T> writer)
+            throws IOException {
+        for (T record : records) {
+            out.writeByte(RECORD);
+            writer.write(out, record);
+        }
+        out.writeByte(END_OF_SECTION);
+    }
+
+    private void writeUser(DataOutputStream out, User user) throws IOException {
+        writeString(out, user.getUsername());
+        writeString(out, user.getPassword());
+        writeString(out, user.getEmail());
+        writeString(out, user.getBirthDate());
+        writeString(out, user.getAddress());
+        out.writeFloat(user.getCredit());
+
+        Map<Integer, Integer> commoditiesRates = user.getCommoditiesRates();
+        out.writeInt(commoditiesRates.size());
+        for (var entry : commoditiesRates.entrySet()) {
+            out.writeInt(entry.getKey());
+            out.writeInt(entry.getValue());
+        }
+        writeQuantities(out, user.getBuyList());
+        writeQuantities(out, user.getPurchasedList());
+    }
+
+    private User readUser(MappedInput in) throws IOException {
+        User user = new User(in.getString(), in.getString(), in.getString(), in.getString(), in.getString());
+        user.setCredit(in.getFloat());
+
+        int count = in.getInt();
+        Map<Integer, Integer> commoditiesRates = new HashMap<>(count * 2);
+        for (int i = 0; i < count; i++)
+            commoditiesRates.put(in.getInt(), in.getInt());
+        user.setCommoditiesRates(commoditiesRates);
+        user.setBuyList(readQuantities(in));
+        user.setPurchasedList(readQuantities(in));
+        return user;
+    }
+
+    private void writeProvider(DataOutputStream out, Provider provider) throws IOException {
+        writeString(out, provider.getId());
+        writeString(out, provider.getName());
+        writeString(out, provider.getRegistryDate());
+        writeString(out, provider.getImage());
+    }
+
+    private Provider readProvider(MappedInput in) throws IOException {
+        Provider provider = new Provider();
+        provider.setId(in.getString());
+        provider.setName(in.getString());
+        provider.setRegistryDate(in.getString());
+        provider.setImage(in.getString());
+        return provider;
+    }
+
+    private void writeCommodity(DataOutputStream out, Commodity commodity) throws IOException {
+        writeString(out, commodity.getId());
+        writeString(out, commodity.getName());
+        writeString(out, commodity.getProviderId());
+        out.writeInt(commodity.getPrice());
+        List<String> categories = commodity.getCategories();
+        out.writeInt(categories.size());
+        for (String category : categories)
+            writeString(out, category);
+        out.writeFloat(commodity.getRating());
+        out.writeInt(commodity.getInStock());
+        writeString(out, commodity.getImage());
+        out.writeFloat(commodity.getInitRate());
+        writeQuantities(out, commodity.getUserRate());
+    }
+
+    private Commodity readCommodity(MappedInput in) throws IOException {
+        Commodity commodity = new Commodity();
+        commodity.setId(in.getString());
+        commodity.setName(in.getString());
+        commodity.setProviderId(in.getString());
+        commodity.setPrice(in.getInt());
+        int count = in.getInt();
+        ArrayList<String> categories = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+            categories.add(in.getString());
+        commodity.setCategories(categories);
+        float rating = in.getFloat();
+        commodity.setInStock(in.getInt());
+        commodity.setImage(in.getString());
+        commodity.setInitRate(in.getFloat());
+        commodity.setUserRate(readQuantities(in));
+        commodity.setRating(rating);
+        return commodity;
+    }
+
+    private void writeComment(DataOutputStream out, Comment comment) throws IOException {
+        out.writeInt(comment.getId());
+        writeString(out, comment.getUserEmail());
+        writeString(out, comment.getUsername());
+        out.writeInt(comment.getCommodityId());
+        writeString(out, comment.getText());
+        writeString(out, comment.getDate());
+        out.writeInt(comment.getLike());
+        out.writeInt(comment.getDislike());
+
+        Map<String, Vote> userVote = comment.getUserVote();
+        out.writeInt(userVote.size());
+        for (var entry : userVote.entrySet()) {
+            writeString(out, entry.getKey());
+            out.writeByte(entry.getValue().ordinal());
+        }
+    }
+
+    // Seed data carries like/dislike counts without per-user votes, so the counters are stored rather than recounted.
+    private Comment readComment(MappedInput in) throws IOException {
+        Comment comment = new Comment();
+        comment.setId(in.getInt());
+        comment.setUserEmail(in.getString());
+        comment.setUsername(in.getString());
+        comment.setCommodityId(in.getInt());
+        comment.setText(in.getString());
+        comment.setDate(in.getString());
+        int like = in.getInt();
+        int dislike = in.getInt();
+
+        int count = in.getInt();
+        Map<String, Vote> userVote = new HashMap<>(count * 2);
+        for (int i = 0; i < count; i++)
+            userVote.put(in.getString(), Vote.values()[in.get()]);
+        comment.setUserVote(userVote);
+        comment.setLike(like);
+        comment.setDislike(dislike);
+        return comment;
+    }
+
+    private static void writeQuantities(DataOutputStream out, Map<String, Integer> quantities) throws IOException {
+        out.writeInt(quantities.size());
+        for (var entry : quantities.entrySet()) {
+            writeString(out, entry.getKey());
+            out.writeInt(entry.getValue());
+        }
+    }
+
+    private static Map<String, Integer> readQuantities(MappedInput in) throws IOException {
+        int count = in.getInt();
+        Map<String, Integer> quantities = new HashMap<>(count * 2);
+        for (int i = 0; i < count; i++)
+            quantities.put(in.getString(), in.getInt());
+        return quantities;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static class MappedInput implements Closeable {
+        private static final long WINDOW_SIZE = 1L << 30;
+
+        private final FileChannel channel;
+        private final long size;
+        private long windowStart;
+        private MappedByteBuffer buffer;
+
+        MappedInput(Path path) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.READ);
+            this.size = channel.size();
+            map(0);
+        }
+
+        private void map(long position) throws IOException {
+            windowStart = position;
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW_SIZE, size - position));
+        }
+
+        private ByteBuffer require(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                map(windowStart + buffer.position());
+                if (buffer.remaining() < bytes)
+                    throw new IOException("Unexpected end of snapshot");
+            }
+            return buffer;
+        }
+
+        byte get() throws IOException {
+            return require(Byte.BYTES).get();
+        }
+
+        int getInt() throws IOException {
+            return require(Integer.BYTES).getInt();
+        }
+
+        long getLong() throws IOException {
+            return require(Long.BYTES).getLong();
+        }
+
+        float getFloat() throws IOException {
+            return require(Float.BYTES).getFloat();
+        }
+
+        String getString() throws IOException {
+            int length = getInt();
+            if (length < 0)
+                return null;
+
+            byte[] bytes = new byte[length];
+            require(length).get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package database;
+
+import model.Commodity;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+public class SortedCommodityView {
+    // bound keys sort before (-1) or after (1) every commodity sharing their value
+    private record Key(Comparable<Object> value, String id, int bound) {
+        Key(Comparable<Object> value, String id) {
+            this(value, id, 0);
+        }
+    }
+
+    private static final Comparator<Comparable<Object>> VALUE_ORDER = Comparator.nullsFirst(Comparator.naturalOrder());
+
+    private static final Comparator<Key> KEY_ORDER = (a, b) -> {
+        int order = VALUE_ORDER.compare(a.value(), b.value());
+        if (order != 0)
+            return order;
+        if (a.bound() != 0 || b.bound() != 0)
+            return Integer.compare(a.bound(), b.bound());
+        return a.id().compareTo(b.id());
+    };
+
+    private final CommoditySortField field;
+    private final Predicate<Commodity> filter;
+    private final NavigableMap<Key, Commodity> entries = new ConcurrentSkipListMap<>(KEY_ORDER);
+    private final Map<String, Key> keys = new ConcurrentHashMap<>();
+
+    public SortedCommodityView(CommoditySortField field) {
+        this(field, commodity -> true);
+    }
+
+    public SortedCommodityView(CommoditySortField field, Predicate<Commodity> filter) {
+        this.field = field;
+        this.filter = filter;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void put(Commodity commodity) {
+        keys.compute(commodity.getId(), (id, oldKey) -> {
+            if (oldKey != null)
+                entries.remove(oldKey);
+            if (!filter.test(commodity))
+                return null;
+
+            Key key = new Key((Comparable<Object>) field.extract(commodity), id);
+            entries.put(key, commodity);
+            return key;
+        });
+    }
+
+    public void clear() {
+        keys.clear();
+        entries.clear();
+    }
+
+    public Stream<Commodity> stream(boolean descending, String afterId) {
+        NavigableMap<Key, Commodity> view = descending ? entries.descendingMap() : entries;
+
+        Key after = afterId == null ? null : keys.get(afterId);
+        if (after != null)
+            view = view.tailMap(after, false);
+
+        return view.values().stream();
+    }
+
+    @SuppressWarnings("unchecked")
+    public Stream<Commodity> range(Comparable<?> from, Comparable<?> to) {
+        return entries.subMap(new Key((Comparable<Object>) from, null, -1), true,
+                new Key((Comparable<Object>) to, null, 1), true).values().stream();
+    }
+}
@@ -0,0 +1,295 @@
+package database;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+public class WriteAheadLog implements Closeable {
+    public enum Durability {
+        // Records are handed to the OS in the background and never fsynced.
+        NONE,
+        // Every batch is fsynced in the background; callers do not wait for it.
+        ASYNC,
+        // Callers wait until the batch holding their record is fsynced (group commit).
+        SYNC
+    }
+
+    private static final int HEADER_SIZE = Integer.BYTES + Integer.BYTES + Long.BYTES;
+    private static final int MAX_RECORD_SIZE = 1 << 24;
+
+    private record Entry(long lsn, byte[] payload) {
+    }
+
+    private final Path path;
+    private volatile FileChannel channel;
+    private final Durability durability;
+    private final BlockingQueue<Entry> pending = new LinkedBlockingQueue<>();
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ReentrantLock writtenLock = new ReentrantLock();
+    private final Condition written = writtenLock.newCondition();
+    private final Thread writer;
+
+    private long lastLsn;
+    private volatile long writtenLsn;
+    private volatile IOException failure;
+    private volatile boolean closed;
+
+    private WriteAheadLog(Path path, FileChannel channel, Durability durability, long lastLsn) {
+        this.path = path;
+        this.channel = channel;
+        this.durability = durability;
+        this.lastLsn = lastLsn;
+        this.writtenLsn = lastLsn;
+        this.writer = new Thread(this::writeLoop, "baloot-wal-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    // Segments retired by a checkpoint whose snapshot never became durable are replayed ahead of the live file.
+    public static WriteAheadLog open(Path path, Durability durability, long afterLsn,
+                                     BiConsumer<Long, byte[]> replayer) throws IOException {
+        long lastLsn = afterLsn;
+        for (Path segment : retiredSegments(path)) {
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+                lastLsn = Math.max(lastLsn, replay(channel, afterLsn, replayer)[1]);
+            }
+        }
+
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        long[] replayed = replay(channel, lastLsn, replayer);
+        channel.truncate(replayed[0]);
+        channel.position(replayed[0]);
+        return new WriteAheadLog(path, channel, durability, Math.max(lastLsn, replayed[1]));
+    }
+
+    // Returns the length of the valid prefix and the last lsn replayed.
+    private static long[] replay(FileChannel channel, long afterLsn, BiConsumer<Long, byte[]> replayer)
+            throws IOException {
+        long lastLsn = afterLsn;
+        long validLength = 0;
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 1 << 16));
+        try {
+            while (true) {
+                int length = in.readInt();
+                int checksum = in.readInt();
+                long lsn = in.readLong();
+                if (length < 0 || length > MAX_RECORD_SIZE)
+                    break;
+
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                if (checksum(lsn, payload) != checksum)
+                    break;
+
+                validLength += HEADER_SIZE + length;
+                if (lsn > lastLsn) {
+                    replayer.accept(lsn, payload);
+                    lastLsn = lsn;
+                }
+            }
+        } catch (EOFException ignored) {
+        }
+        return new long[]{validLength, lastLsn};
+    }
+
+    private static List<Path> retiredSegments(Path path) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        Pattern name = Pattern.compile(Pattern.quote(path.getFileName().toString()) + "\\.\\d+");
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> name.matcher(file.getFileName().toString()).matches())
+                    .sorted(Comparator.comparingLong(WriteAheadLog::segmentLsn))
+                    .toList();
+        }
+    }
+
+    private static long segmentLsn(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(name.lastIndexOf('.') + 1));
+    }
+
+    public long append(byte[] payload) {
+        appendLock.lock();
+        try {
+            checkWritable();
+            long lsn = ++lastLsn;
+            pending.add(new Entry(lsn, payload));
+            return lsn;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    public void checkWritable() {
+        if (closed)
+            throw new IllegalStateException("write-ahead log is closed");
+        if (failure != null)
+            throw new UncheckedIOException(failure);
+    }
+
+    public void awaitDurable(long lsn) {
+        if (durability == Durability.SYNC)
+            awaitWritten(lsn);
+    }
+
+    public long flush() {
+        long lsn;
+        appendLock.lock();
+        try {
+            lsn = lastLsn;
+        } finally {
+            appendLock.unlock();
+        }
+
+        awaitWritten(lsn);
+        return lsn;
+    }
+
+    // Moves everything logged so far into a retired segment and starts an empty live file. Appends wait meanwhile;
+    // the writer is idle once the flush returns, so the channel can be swapped under it.
+    public long rotate() throws IOException {
+        appendLock.lock();
+        try {
+            checkWritable();
+            long lsn = lastLsn;
+            awaitWritten(lsn);
+
+            FileChannel retired = channel;
+            retired.force(true);
+            Files.move(path, path.resolveSibling(path.getFileName() + "." + lsn), StandardCopyOption.ATOMIC_MOVE);
+            channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            retired.close();
+            return lsn;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    // Drops retired segments a durable snapshot already covers.
+    public void retire(long lsn) throws IOException {
+        for (Path segment : retiredSegments(path)) {
+            if (segmentLsn(segment) <= lsn)
+                Files.deleteIfExists(segment);
+        }
+    }
+
+    private void awaitWritten(long lsn) {
+        writtenLock.lock();
+        try {
+            while (writtenLsn < lsn && failure == null)
+                written.awaitUninterruptibly();
+        } finally {
+            writtenLock.unlock();
+        }
+
+        if (writtenLsn < lsn)
+            throw new UncheckedIOException(failure);
+    }
+
+    // A failed batch leaves a hole in the log, so the writer stops at the first failure; whatever way it exits, every
+    // waiter is woken and anything still unwritten fails instead of waiting forever.
+    private void writeLoop() {
+        List<Entry> batch = new ArrayList<>();
+        try {
+            while (!closed || !pending.isEmpty()) {
+                Entry first = pending.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null)
+                    continue;
+
+                batch.add(first);
+                pending.drainTo(batch);
+                write(batch);
+                batch.clear();
+                signalWritten();
+            }
+        } catch (InterruptedException e) {
+            failure = new InterruptedIOException("write-ahead log writer was interrupted");
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            failure = e;
+        } finally {
+            if (failure == null && !pending.isEmpty())
+                failure = new IOException("write-ahead log writer stopped with records pending");
+            signalWritten();
+        }
+    }
+
+    private void signalWritten() {
+        writtenLock.lock();
+        try {
+            written.signalAll();
+        } finally {
+            writtenLock.unlock();
+        }
+    }
+
+    private void write(List<Entry> batch) throws IOException {
+        int size = 0;
+        for (Entry entry : batch)
+            size += HEADER_SIZE + entry.payload().length;
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        for (Entry entry : batch) {
+            buffer.putInt(entry.payload().length);
+            buffer.putInt(checksum(entry.lsn(), entry.payload()));
+            buffer.putLong(entry.lsn());
+            buffer.put(entry.payload());
+        }
+        buffer.flip();
+
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        if (durability != Durability.NONE)
+            channel.force(false);
+
+        writtenLsn = batch.get(batch.size() - 1).lsn();
+    }
+
+    private static int checksum(long lsn, byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(ByteBuffer.allocate(Long.BYTES).putLong(0, lsn));
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    @Override
+    public void close() throws IOException {
+        appendLock.lock();
+        try {
+            closed = true;
+        } finally {
+            appendLock.unlock();
+        }
+
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+}
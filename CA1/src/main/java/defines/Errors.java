@@ -24,4 +24,5 @@ public class Errors {
     public static final String NOT_EXISTENT_USER = "User does not exist.";
     public static final String INCORRECT_PASSWORD = "Incorrect password.";
     public static final String USERNAME_ALREADY_TAKEN = "The username is already taken.";
+    public static final String TOO_MANY_LOGIN_ATTEMPTS = "Too many login attempts, try again later.";
 }
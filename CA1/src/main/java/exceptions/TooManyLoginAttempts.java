@@ -0,0 +1,9 @@
+package exceptions;
+
+import static defines.Errors.TOO_MANY_LOGIN_ATTEMPTS;
+
+public class TooManyLoginAttempts extends Exception {
+    public TooManyLoginAttempts() {
+        super(TOO_MANY_LOGIN_ATTEMPTS);
+    }
+}
@@ -1,13 +1,17 @@
 package model;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.text.SimpleDateFormat;
+import java.util.Collections;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Getter
 @Setter
@@ -21,9 +25,17 @@ public class Comment {
     private String text;
     private String date;
 
-    private int like;
-    private int dislike;
-    private Map<String, String> userVote = new HashMap<>();
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final AtomicInteger like = new AtomicInteger();
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final AtomicInteger dislike = new AtomicInteger();
+    private Map<String, Vote> userVote = new ConcurrentHashMap<>();
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final ReentrantLock lock = new ReentrantLock();
 
     public Comment(int id, String userEmail, String username, int commodityId, String text) {
         this.id = id;
@@ -34,6 +46,10 @@ public class Comment {
         this.date = getCurrentDate();
     }
 
+    public ReentrantLock mutex() {
+        return lock;
+    }
+
     public String getCurrentDate() {
         Date currentDate = new Date();
         SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
@@ -41,17 +57,51 @@ public class Comment {
     }
 
     public void addUserVote(String userName, String vote) {
-        userVote.put(userName, vote);
+        addUserVote(userName, Vote.fromName(vote));
+    }
+
+    public void addUserVote(String userName, Vote vote) {
+        if (userName == null || vote == null)
+            return;
+
+        Vote previousVote = userVote.put(userName, vote);
+        if (previousVote == vote)
+            return;
+
+        if (previousVote != null)
+            counterOf(previousVote).decrementAndGet();
+        counterOf(vote).incrementAndGet();
+    }
+
+    private AtomicInteger counterOf(Vote vote) {
+        return vote == Vote.LIKE ? like : dislike;
+    }
 
-        this.like = 0;
-        this.dislike = 0;
+    public int getLike() {
+        return like.get();
+    }
+
+    public void setLike(int like) {
+        this.like.set(like);
+    }
+
+    public int getDislike() {
+        return dislike.get();
+    }
+
+    public void setDislike(int dislike) {
+        this.dislike.set(dislike);
+    }
+
+    public Map<String, Vote> getUserVote() {
+        return Collections.unmodifiableMap(userVote);
+    }
 
-        for (String key : userVote.keySet()) {
-            if (userVote.get(key).equals("like"))
-                this.like += 1;
-            else if (userVote.get(key).equals("dislike"))
-                this.dislike += 1;
-        }
+    public void setUserVote(Map<String, Vote> userVote) {
+        this.userVote = new ConcurrentHashMap<>();
+        this.like.set(0);
+        this.dislike.set(0);
+        userVote.forEach(this::addUserVote);
     }
 
 }
@@ -1,44 +1,111 @@
 package model;
 
 import exceptions.NotInStock;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
+import utils.IdTable;
+import utils.IntIntMap;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Getter
 @Setter
 public class Commodity {
+    private static final AtomicLong priceEpoch = new AtomicLong();
+
     private String id;
     private String name;
     private String providerId;
     private int price;
     private ArrayList<String> categories = new ArrayList<>();
-    private float rating;
-    private int inStock;
+    private volatile float rating;
+    private volatile int inStock;
     private String image;
 
-    private Map<String, Integer> userRate = new HashMap<>();
+    private final IntIntMap userRate = new IntIntMap();
     private float initRate;
 
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private long userRateSum;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public ReentrantLock mutex() {
+        return lock;
+    }
+
+    public static long priceEpoch() {
+        return priceEpoch.get();
+    }
+
+    public static void invalidatePrices() {
+        priceEpoch.incrementAndGet();
+    }
+
+    // Use for commodities that may already sit in a cart, through Database.updatePrice once the commodity is stored;
+    // setPrice is for building a commodity before it is stored.
+    public void changePrice(int price) {
+        this.price = price;
+        priceEpoch.incrementAndGet();
+    }
+
     public void updateInStock(int amount) throws NotInStock {
-        if ((this.inStock + amount) < 0)
-            throw new NotInStock();
-        this.inStock += amount;
+        lock.lock();
+        try {
+            if ((this.inStock + amount) < 0)
+                throw new NotInStock();
+            this.inStock += amount;
+        } finally {
+            lock.unlock();
+        }
     }
 
     public void addRate(String username, int score) {
-        userRate.put(username, score);
-        this.calcRating();
+        lock.lock();
+        try {
+            int user = IdTable.users.intern(username);
+            this.userRateSum += score - userRate.get(user, 0);
+            userRate.put(user, score);
+            this.calcRating();
+        } finally {
+            lock.unlock();
+        }
     }
 
     private void calcRating() {
-        float sum = 0;
-        for (Map.Entry<String, Integer> entry : this.userRate.entrySet()) {
-            sum += entry.getValue();
+        this.rating = ((this.initRate + this.userRateSum) / (this.userRate.size() + 1));
+    }
+
+    public Map<String, Integer> getUserRate() {
+        lock.lock();
+        try {
+            Map<String, Integer> userRate = new HashMap<>(this.userRate.size() * 2);
+            this.userRate.forEach((user, score) -> userRate.put(IdTable.users.name(user), score));
+            return userRate;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void setUserRate(Map<String, Integer> userRate) {
+        lock.lock();
+        try {
+            this.userRate.clear();
+            this.userRateSum = 0;
+            for (var entry : userRate.entrySet()) {
+                this.userRate.put(IdTable.users.intern(entry.getKey()), entry.getValue());
+                this.userRateSum += entry.getValue();
+            }
+        } finally {
+            lock.unlock();
         }
-        this.rating = ((this.initRate + sum) / (this.userRate.size() + 1));
     }
 }
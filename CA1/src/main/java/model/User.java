@@ -3,12 +3,18 @@ package model;
 import exceptions.CommodityIsNotInBuyList;
 import exceptions.InsufficientCredit;
 import exceptions.InvalidCreditRange;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import utils.IdTable;
+import utils.IntIntMap;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntFunction;
 
 @Getter
 @Setter
@@ -19,11 +25,22 @@ public class User {
     private String email;
     private String birthDate;
     private String address;
-    private float credit;
+    private volatile float credit;
 
-    private Map<Integer, Integer> commoditiesRates = new HashMap<>();
-    private Map<String, Integer> buyList = new HashMap<>();
-    private Map<String, Integer> purchasedList = new HashMap<>();
+    private final IntIntMap commoditiesRates = new IntIntMap();
+    private final IntIntMap buyList = new IntIntMap();
+    private final IntIntMap purchasedList = new IntIntMap();
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final ReentrantLock lock = new ReentrantLock();
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private long buyListTotal;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private long buyListTotalEpoch = -1;
 
     public User(String username, String password, String email, String birthDate, String address) {
         this.username = username;
@@ -33,47 +50,216 @@ public class User {
         this.address = address;
     }
 
+    public ReentrantLock mutex() {
+        return lock;
+    }
+
     public void addCredit(float amount) throws InvalidCreditRange {
-        if (amount < 0)
-            throw new InvalidCreditRange();
+        lock.lock();
+        try {
+            if (amount < 0)
+                throw new InvalidCreditRange();
 
-        this.credit += amount;
+            this.credit += amount;
+        } finally {
+            lock.unlock();
+        }
     }
 
     public void withdrawCredit(float amount) throws InsufficientCredit {
-        if (amount > this.credit)
-            throw new InsufficientCredit();
+        lock.lock();
+        try {
+            if (amount > this.credit)
+                throw new InsufficientCredit();
 
-        this.credit -= amount;
+            this.credit -= amount;
+        } finally {
+            lock.unlock();
+        }
     }
 
     public void addBuyItem(Commodity commodity) {
-        String id = commodity.getId();
-        if (this.buyList.containsKey(id)) {
-            int existingQuantity = this.buyList.get(id);
-            this.buyList.put(id, existingQuantity + 1);
-        } else
-            this.buyList.put(id, 1);
+        addBuyItem(commodity, 1);
+    }
+
+    public void addBuyItem(Commodity commodity, int quantity) {
+        lock.lock();
+        try {
+            checkBuyItem(commodity, quantity);
+            putBuyItem(commodity, quantity, Commodity.priceEpoch());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void addBuyItems(Map<Commodity, Integer> quantities) {
+        lock.lock();
+        try {
+            for (var entry : quantities.entrySet())
+                checkBuyItem(entry.getKey(), entry.getValue());
+
+            long epoch = Commodity.priceEpoch();
+            for (var entry : quantities.entrySet())
+                putBuyItem(entry.getKey(), entry.getValue(), epoch);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Runs before anything is added, so a batch that would overflow one line leaves the whole cart unchanged.
+    private void checkBuyItem(Commodity commodity, int quantity) {
+        int current = this.buyList.get(IdTable.commodities.intern(commodity.getId()), 0);
+        if (quantity > Integer.MAX_VALUE - current)
+            throw new IllegalArgumentException("Quantity of commodity " + commodity.getId() + " is too large");
+    }
+
+    private void putBuyItem(Commodity commodity, int quantity, long epoch) {
+        this.buyList.addTo(IdTable.commodities.intern(commodity.getId()), quantity);
+        if (this.buyListTotalEpoch == epoch)
+            this.buyListTotal += (long) commodity.getPrice() * quantity;
     }
 
     public void addPurchasedItem(String id, int quantity) {
-        if (this.purchasedList.containsKey(id)) {
-            int existingQuantity = this.purchasedList.get(id);
-            this.purchasedList.put(id, existingQuantity + quantity);
-        } else
-            this.purchasedList.put(id, quantity);
+        lock.lock();
+        try {
+            this.purchasedList.addTo(IdTable.commodities.intern(id), quantity);
+        } finally {
+            lock.unlock();
+        }
     }
 
     public void removeItemFromBuyList(Commodity commodity) throws CommodityIsNotInBuyList {
-        String id = commodity.getId();
-        if (this.buyList.containsKey(id)) {
-            int existingQuantity = this.buyList.get(id);
-            if (existingQuantity == 1)
-                this.buyList.remove(commodity.getId());
-            else
-                this.buyList.put(id, existingQuantity - 1);
-        } else
-            throw new CommodityIsNotInBuyList();
+        lock.lock();
+        try {
+            long epoch = Commodity.priceEpoch();
+            int id = IdTable.commodities.intern(commodity.getId());
+            if (this.buyList.containsKey(id)) {
+                int existingQuantity = this.buyList.get(id, 0);
+                if (existingQuantity == 1)
+                    this.buyList.remove(id);
+                else
+                    this.buyList.put(id, existingQuantity - 1);
+            } else
+                throw new CommodityIsNotInBuyList();
+
+            if (this.buyListTotalEpoch == epoch)
+                this.buyListTotal -= commodity.getPrice();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long buyListTotal(IntFunction<Commodity> resolver) {
+        lock.lock();
+        try {
+            refreshBuyList(resolver);
+            return this.buyListTotal;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Map<Commodity, Integer> buyListItems(IntFunction<Commodity> resolver) {
+        lock.lock();
+        try {
+            Map<Commodity, Integer> items = new LinkedHashMap<>();
+            this.buyList.forEach((id, quantity) -> {
+                Commodity commodity = resolver.apply(id);
+                if (commodity != null)
+                    items.put(commodity, quantity);
+            });
+
+            return items;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // The running total is only trusted while no commodity price has changed since it was computed; otherwise the
+    // cart is summed again from the resolver, which skips commodities that no longer exist.
+    private void refreshBuyList(IntFunction<Commodity> resolver) {
+        long epoch = Commodity.priceEpoch();
+        if (this.buyListTotalEpoch == epoch)
+            return;
+
+        long[] total = {0};
+        this.buyList.forEach((id, quantity) -> {
+            Commodity commodity = resolver.apply(id);
+            if (commodity != null)
+                total[0] += (long) commodity.getPrice() * quantity;
+        });
+
+        this.buyListTotal = total[0];
+        this.buyListTotalEpoch = epoch;
+    }
+
+    public Map<Integer, Integer> getCommoditiesRates() {
+        lock.lock();
+        try {
+            Map<Integer, Integer> commoditiesRates = new HashMap<>();
+            this.commoditiesRates.forEach(commoditiesRates::put);
+            return commoditiesRates;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void setCommoditiesRates(Map<Integer, Integer> commoditiesRates) {
+        lock.lock();
+        try {
+            this.commoditiesRates.clear();
+            commoditiesRates.forEach(this.commoditiesRates::put);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Map<String, Integer> getBuyList() {
+        lock.lock();
+        try {
+            return toCommodityIds(buyList);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void setBuyList(Map<String, Integer> buyList) {
+        lock.lock();
+        try {
+            fromCommodityIds(this.buyList, buyList);
+            this.buyListTotalEpoch = -1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Map<String, Integer> getPurchasedList() {
+        lock.lock();
+        try {
+            return toCommodityIds(purchasedList);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void setPurchasedList(Map<String, Integer> purchasedList) {
+        lock.lock();
+        try {
+            fromCommodityIds(this.purchasedList, purchasedList);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static Map<String, Integer> toCommodityIds(IntIntMap quantities) {
+        Map<String, Integer> result = new HashMap<>(quantities.size() * 2);
+        quantities.forEach((id, quantity) -> result.put(IdTable.commodities.name(id), quantity));
+        return result;
+    }
+
+    private static void fromCommodityIds(IntIntMap quantities, Map<String, Integer> source) {
+        quantities.clear();
+        source.forEach((id, quantity) -> quantities.put(IdTable.commodities.intern(id), quantity));
     }
 
 }
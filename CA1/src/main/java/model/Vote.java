@@ -0,0 +1,29 @@
+package model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+public enum Vote {
+    LIKE("like"),
+    DISLIKE("dislike");
+
+    private final String name;
+
+    Vote(String name) {
+        this.name = name;
+    }
+
+    @JsonValue
+    public String getName() {
+        return name;
+    }
+
+    @JsonCreator
+    public static Vote fromName(String name) {
+        for (Vote vote : values())
+            if (vote.name.equals(name))
+                return vote;
+
+        return null;
+    }
+}
@@ -1,221 +1,641 @@
 package service;
 
+import database.CommoditySortField;
 import database.DataParser;
 import database.Database;
+import database.DatabaseSnapshot;
+import database.WriteAheadLog;
 import model.Comment;
 import model.Commodity;
 import model.Provider;
 import model.User;
+import model.Vote;
 import exceptions.*;
+import utils.BuyListItem;
+import utils.PageRequest;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.*;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 
 public class Baloot {
-    private static Baloot instance;
+    private static final Baloot instance = new Baloot();
+    private static final IntFunction<Commodity> commodityResolver = index -> Database.getInstance()
+            .findCommodityByIndex(index);
+
+    private final QueryCache queryCache = new QueryCache("baloot.queries", 10_000, Duration.ofMinutes(5));
+    private volatile PasswordHasher passwordHasher;
+    private volatile LoginRateLimiter loginsPerUser = new LoginRateLimiter(10, 30);
+    private volatile LoginRateLimiter loginsPerAddress = new LoginRateLimiter(100, 300);
+    private final CommodityQueryEngine queryEngine = new CommodityQueryEngine();
+    private volatile Journal journal = Journal.disabled();
+
+    private interface Mutation<E extends Exception> {
+        long apply(Journal journal) throws E;
+    }
 
     private Baloot() {
-        fetchAndStoreData();
+        Database.getInstance().addCatalogListener(queryCache);
     }
 
     public static Baloot getInstance() {
-        if (instance == null) {
-            instance = new Baloot();
-        }
         return instance;
     }
 
+    public void configureQueryCache(long maximumSize) {
+        queryCache.setMaximumSize(maximumSize);
+    }
+
+    // The hasher owns a thread pool registered with the metrics, so it can only be replaced before first use.
+    public synchronized void configureLogins(PasswordHasher passwordHasher, LoginRateLimiter loginsPerUser,
+                                             LoginRateLimiter loginsPerAddress) {
+        if (this.passwordHasher != null)
+            throw new IllegalStateException("password hashing is already in use");
+
+        this.passwordHasher = passwordHasher;
+        this.loginsPerUser = loginsPerUser;
+        this.loginsPerAddress = loginsPerAddress;
+    }
+
+    private PasswordHasher passwordHasher() {
+        PasswordHasher hasher = passwordHasher;
+        if (hasher != null)
+            return hasher;
+
+        synchronized (this) {
+            if (passwordHasher == null)
+                passwordHasher = new PasswordHasher(10, Runtime.getRuntime().availableProcessors(), 256,
+                        Duration.ofMinutes(1));
+            return passwordHasher;
+        }
+    }
+
     public void fetchAndStoreData() {
-        DataParser dataParser = new DataParser(Database.getInstance());
+        fetchAndStoreData(DataParser.DEFAULT_DATA_PATH);
+    }
+
+    public void fetchAndStoreData(String dataPath) {
+        DataParser dataParser = new DataParser(Database.getInstance(), dataPath);
 
         try {
-            dataParser.getUsersList();
-            dataParser.getProvidersList();
-            dataParser.getCommoditiesList();
-            dataParser.getCommentsList();
+            dataParser.getAllLists();
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
-    public void login(String userId, String password) throws NotExistentUser, IncorrectPassword {
-        User user = this.getUserById(userId);
-        if (!user.getPassword().equals(password))
-            throw new IncorrectPassword();
+    public void saveSnapshot(Path path) throws IOException {
+        journal.checkpoint(lastLsn -> new DatabaseSnapshot(Database.getInstance()).capture(path, lastLsn),
+                () -> DatabaseSnapshot.publish(path));
+    }
+
+    public long loadSnapshot(Path path) throws IOException {
+        return new DatabaseSnapshot(Database.getInstance()).read(path);
+    }
+
+    public void openJournal(Path path, WriteAheadLog.Durability durability, long afterLsn) throws IOException {
+        journal = Journal.open(path, durability, afterLsn);
+    }
+
+    public void closeJournal() throws IOException {
+        Journal current = journal;
+        journal = Journal.disabled();
+        current.close();
+    }
+
+    // The log is checked before memory is touched, so a closed or failed log rejects the mutation instead of leaving
+    // an unlogged change behind; a journal swapped out while we waited for its lock is retried on the new one.
+    private Journal lockJournal() {
+        while (true) {
+            Journal current = journal;
+            current.mutationLock().lock();
+            if (!current.isClosed()) {
+                try {
+                    current.checkWritable();
+                } catch (RuntimeException e) {
+                    current.mutationLock().unlock();
+                    throw e;
+                }
+                return current;
+            }
+            current.mutationLock().unlock();
+        }
+    }
+
+    private <E extends Exception> void mutate(Mutation<E> mutation) throws E {
+        Journal current = lockJournal();
+        long lsn;
+        try {
+            lsn = mutation.apply(current);
+        } finally {
+            current.mutationLock().unlock();
+        }
+        current.awaitDurable(lsn);
+    }
+
+    public void login(String userId, String password, String clientAddress)
+            throws NotExistentUser, IncorrectPassword, TooManyLoginAttempts {
+        try (ServiceMetrics.Timing ignored = ServiceMetrics.LOGIN.time()) {
+            if (!loginsPerUser.tryAcquire(userId) || !loginsPerAddress.tryAcquire(clientAddress))
+                throw new TooManyLoginAttempts();
+
+            User user = this.getUserById(userId);
+            String stored = user.getPassword();
+            if (!passwordHasher().matches(userId, password, stored))
+                throw new IncorrectPassword();
+
+            loginsPerUser.release(userId);
+            if (!PasswordHasher.isHash(stored))
+                upgradePassword(user, stored, password);
+        }
+    }
+
+    private void upgradePassword(User user, String stored, String password) {
+        String hash;
+        try {
+            hash = passwordHasher().hash(password);
+        } catch (TooManyLoginAttempts ignored) {
+            return;
+        }
+
+        mutate(journal -> {
+            user.mutex().lock();
+            try {
+                if (!stored.equals(user.getPassword()))
+                    return 0;
+
+                user.setPassword(hash);
+                return journal.setPassword(user);
+            } finally {
+                user.mutex().unlock();
+            }
+        });
     }
 
     public void addCommodityToUserBuyList(String userId, String commodityId)
             throws NotExistentUser, NotExistentCommodity, AlreadyInBuyList {
-        User user = getUserById(userId);
-        Commodity commodity = getCommodityById(commodityId);
+        try (ServiceMetrics.Timing ignored = ServiceMetrics.ADD_TO_BUY_LIST.time()) {
+            User user = getUserById(userId);
+            Commodity commodity = getCommodityById(commodityId);
+
+            mutate(journal -> {
+                user.mutex().lock();
+                try {
+                    user.addBuyItem(commodity);
+                    return journal.addBuyItem(user, commodity, 1);
+                } finally {
+                    user.mutex().unlock();
+                }
+            });
+        }
+    }
+
+    public void addCommoditiesToUserBuyList(String userId, Map<String, Integer> quantities)
+            throws NotExistentUser, NotExistentCommodity {
+        try (ServiceMetrics.Timing ignored = ServiceMetrics.ADD_ALL_TO_BUY_LIST.time()) {
+            User user = getUserById(userId);
+            Map<Commodity, Integer> items = resolveCommodities(quantities, new LinkedHashMap<>());
+            for (int quantity : items.values())
+                if (quantity <= 0)
+                    throw new IllegalArgumentException("Quantities must be positive");
+
+            mutate(journal -> {
+                user.mutex().lock();
+                try {
+                    user.addBuyItems(items);
+                    return journal.addBuyItems(user, items);
+                } finally {
+                    user.mutex().unlock();
+                }
+            });
+        }
+    }
+
+    // Resolves every id before anything is mutated, so a batch with an unknown commodity changes nothing.
+    private Map<Commodity, Integer> resolveCommodities(Map<String, Integer> values, Map<Commodity, Integer> resolved)
+            throws NotExistentCommodity {
+        for (var entry : values.entrySet()) {
+            Commodity commodity = Database.getInstance().findCommodity(entry.getKey());
+            if (commodity == null)
+                throw new NotExistentCommodity();
+            if (entry.getValue() == null)
+                throw new IllegalArgumentException("Missing value for commodity " + entry.getKey());
+
+            resolved.merge(commodity, entry.getValue(), Integer::sum);
+        }
 
-        user.addBuyItem(commodity);
+        return resolved;
     }
 
     public void removeCommodityFromUserBuyList(String userId, String commodityId)
             throws MissingUserId, MissingCommodityId, NotExistentUser, NotExistentCommodity, CommodityIsNotInBuyList {
-        if (userId == null)
-            throw new MissingUserId();
-        if (commodityId == null)
-            throw new MissingCommodityId();
-
-        User user = getUserById(userId);
-        Commodity commodity = getCommodityById(commodityId);
+        try (ServiceMetrics.Timing ignored = ServiceMetrics.REMOVE_FROM_BUY_LIST.time()) {
+            if (userId == null)
+                throw new MissingUserId();
+            if (commodityId == null)
+                throw new MissingCommodityId();
+
+            User user = getUserById(userId);
+            Commodity commodity = getCommodityById(commodityId);
+
+            mutate(journal -> {
+                user.mutex().lock();
+                try {
+                    user.removeItemFromBuyList(commodity);
+                    return journal.removeBuyItem(user, commodity);
+                } finally {
+                    user.mutex().unlock();
+                }
+            });
+        }
+    }
 
-        user.removeItemFromBuyList(commodity);
+    public void addCredit(String userId, float amount) throws NotExistentUser, InvalidCreditRange {
+        try (ServiceMetrics.Timing ignored = ServiceMetrics.ADD_CREDIT.time()) {
+            User user = getUserById(userId);
+
+            mutate(journal -> {
+                user.mutex().lock();
+                try {
+                    user.addCredit(amount);
+                    return journal.addCredit(user, amount);
+                } finally {
+                    user.mutex().unlock();
+                }
+            });
+        }
     }
 
     public float getCurrentBuyListPrice(User user) {
-        float total = 0;
-        for (var entry : new ArrayList<>(user.getBuyList().entrySet())) {
+        try (ServiceMetrics.Timing ignored = ServiceMetrics.BUY_LIST_PRICE.time()) {
+            return user.buyListTotal(commodityResolver);
+        }
+    }
+
+    public void withdrawPayableAmount(User user) throws InsufficientCredit, NotInStock {
+        try (ServiceMetrics.Timing ignored = ServiceMetrics.CHECKOUT.time()) {
+            Journal journal = lockJournal();
+            long lsn;
             try {
-                Commodity commodity = getCommodityById(entry.getKey());
-                total += commodity.getPrice() * entry.getValue();
-            } catch (NotExistentCommodity ignored) {
+                lsn = checkout(journal, user);
+            } finally {
+                journal.mutationLock().unlock();
             }
+            journal.awaitDurable(lsn);
         }
-
-        return total;
     }
 
-    public void withdrawPayableAmount(User user) throws InsufficientCredit, NotInStock {
-        float amount = getCurrentBuyListPrice(user);
-        user.withdrawCredit(amount);
+    private long checkout(Journal journal, User user) throws InsufficientCredit, NotInStock {
+        user.mutex().lock();
+        try {
+            Map<String, Integer> buyList = user.getBuyList();
+            Map<Commodity, Integer> items = user.buyListItems(commodityResolver);
+            for (int quantity : items.values())
+                if (quantity <= 0)
+                    throw new IllegalArgumentException("Quantities must be positive");
+
+            Map<Commodity, Integer> reserved = new HashMap<>();
+            long amount = 0;
 
-        for (var entry : new ArrayList<>(user.getBuyList().entrySet())) {
-            user.addPurchasedItem(entry.getKey(), entry.getValue());
             try {
-                Commodity commodity = getCommodityById(entry.getKey());
-                commodity.updateInStock(-entry.getValue());
-            } catch (NotExistentCommodity ignored) {
-            } catch (NotInStock e) {
-                throw new NotInStock();
+                for (var entry : items.entrySet()) {
+                    Commodity commodity = entry.getKey();
+                    commodity.updateInStock(-entry.getValue());
+                    reserved.put(commodity, entry.getValue());
+                    amount += (long) commodity.getPrice() * entry.getValue();
+                }
+                user.withdrawCredit(amount);
+            } catch (NotInStock | InsufficientCredit e) {
+                releaseReservedStock(reserved);
+                throw e;
             }
+
+            for (var entry : buyList.entrySet())
+                user.addPurchasedItem(entry.getKey(), entry.getValue());
+
+            user.setBuyList(new HashMap<>());
+            reserved.keySet().forEach(Database.getInstance()::stockChanged);
+            return journal.checkout(user, amount, buyList);
+        } finally {
+            user.mutex().unlock();
         }
+    }
 
-        user.setBuyList(new HashMap<>());
+    private void releaseReservedStock(Map<Commodity, Integer> reserved) {
+        for (var entry : reserved.entrySet()) {
+            try {
+                entry.getKey().updateInStock(entry.getValue());
+            } catch (NotInStock ignored) {
+            }
+            Database.getInstance().stockChanged(entry.getKey());
+        }
     }
 
     public User getUserById(String userId) throws NotExistentUser {
-        for (User user : Database.getInstance().getUsers())
-            if (user.getUsername().equals(userId))
-                return user;
+        try (ServiceMetrics.Timing ignored = ServiceMetrics.GET_USER.time()) {
+            User user = Database.getInstance().findUser(userId);
+            if (user == null)
+                throw new NotExistentUser();
 
-        throw new NotExistentUser();
+            return user;
+        }
     }
 
     public Provider getProviderById(String providerId) throws NotExistentProvider {
-        for (Provider provider : Database.getInstance().getProviders())
-            if (Objects.equals(provider.getId(), providerId))
-                return provider;
+        try (ServiceMetrics.Timing ignored = ServiceMetrics.GET_PROVIDER.time()) {
+            Provider provider = Database.getInstance().findProvider(providerId);
+            if (provider == null)
+                throw new NotExistentProvider();
 
-        throw new NotExistentProvider();
+            return provider;
+        }
     }
 
     public Commodity getCommodityById(String commodityId) throws NotExistentCommodity {
-        for (Commodity commodity : Database.getInstance().getCommodities())
-            if (Objects.equals(commodity.getId(), commodityId))
-                return commodity;
+        try (ServiceMetrics.Timing ignored = ServiceMetrics.GET_COMMODITY.time()) {
+            Commodity commodity = Database.getInstance().findCommodity(commodityId);
+            if (commodity == null)
+                throw new NotExistentCommodity();
 
-        throw new NotExistentCommodity();
+            return commodity;
+        }
     }
 
-    public ArrayList<Commodity> getCommodities() {
-        return Database.getInstance().getCommodities();
+    public ArrayList<User> getUsersByIds(Collection<String> userIds) {
+        try (ServiceMetrics.Timing ignored = ServiceMetrics.GET_USERS.time()) {
+            ArrayList<User> users = new ArrayList<>(userIds.size());
+            for (String userId : userIds) {
+                User user = Database.getInstance().findUser(userId);
+                if (user != null)
+                    users.add(user);
+            }
+
+            return users;
+        }
     }
 
-    public ArrayList<Commodity> getCommoditiesProvidedByProvider(String providerId) {
-        ArrayList<Commodity> commodities = new ArrayList<>();
-        for (Commodity commodity : Database.getInstance().getCommodities())
-            if (Objects.equals(commodity.getProviderId(), providerId))
-                commodities.add(commodity);
+    public ArrayList<Provider> getProvidersByIds(Collection<String> providerIds) {
+        try (ServiceMetrics.Timing ignored = ServiceMetrics.GET_PROVIDERS.time()) {
+            ArrayList<Provider> providers = new ArrayList<>(providerIds.size());
+            for (String providerId : providerIds) {
+                Provider provider = Database.getInstance().findProvider(providerId);
+                if (provider != null)
+                    providers.add(provider);
+            }
 
-        return commodities;
+            return providers;
+        }
     }
 
-    public ArrayList<Comment> getCommentsForCommodity(int commodityId) {
-        ArrayList<Comment> comments = new ArrayList<>();
-        for (Comment comment : Database.getInstance().getComments())
-            if (comment.getCommodityId() == commodityId)
-                comments.add(comment);
+    public ArrayList<Commodity> getCommoditiesByIds(Collection<String> commodityIds) {
+        try (ServiceMetrics.Timing ignored = ServiceMetrics.GET_COMMODITIES.time()) {
+            ArrayList<Commodity> commodities = new ArrayList<>(commodityIds.size());
+            for (String commodityId : commodityIds) {
+                Commodity commodity = Database.getInstance().findCommodity(commodityId);
+                if (commodity != null)
+                    commodities.add(commodity);
+            }
 
-        return comments;
+            return commodities;
+        }
     }
 
-    public Comment getCommentById(int commentId) throws NotExistentComment {
-        for (Comment comment : Database.getInstance().getComments())
-            if (comment.getId() == commentId)
-                return comment;
+    public Collection<Commodity> getCommodities() {
+        return Database.getInstance().getCommodities();
+    }
+
+    public Stream<Commodity> streamCommodities(PageRequest page) {
+        Database database = Database.getInstance();
+        if (page.getAfter() != null && database.findCommodity(page.getAfter()) == null)
+            throw new IllegalArgumentException("unknown cursor: " + page.getAfter());
+
+        Stream<Commodity> commodities = page.getSort() == null ? database.streamCommodities(page.getAfter())
+                : database.streamCommodities(page.getSort(), page.isDescending(), page.getAfter());
+        return commodities.skip(page.getOffset()).limit(page.getLimit());
+    }
+
+    public ArrayList<Commodity> getCommodities(PageRequest page) {
+        try (ServiceMetrics.Timing ignored = ServiceMetrics.PAGE_COMMODITIES.time()) {
+            return streamCommodities(page).collect(Collectors.toCollection(ArrayList::new));
+        }
+    }
+
+    public ArrayList<Commodity> sortAndPage(List<Commodity> commodities, PageRequest page) {
+        Stream<Commodity> result = commodities.stream();
+        if (page.getSort() != null) {
+            Comparator<Commodity> comparator = page.getSort().comparator();
+            result = result.sorted(page.isDescending() ? comparator.reversed() : comparator);
+        }
 
-        throw new NotExistentComment();
+        return result.skip(page.getOffset())
+                .limit(page.getLimit())
+                .collect(Collectors.toCollection(ArrayList::new));
     }
 
+    public ArrayList<Commodity> getCommoditiesProvidedByProvider(String providerId) {
+        try (ServiceMetrics.Timing ignored = ServiceMetrics.PROVIDER_COMMODITIES.time()) {
+            return new ArrayList<>(Database.getInstance().findCommoditiesByProvider(providerId));
+        }
+    }
 
-    public ArrayList<Commodity> filterCommoditiesByCategory(String category) {
-        ArrayList<Commodity> result = new ArrayList<>();
-        for (Commodity commodity : Database.getInstance().getCommodities())
-            if (commodity.getCategories().contains(category))
-                result.add(commodity);
+    public void updateCommodityCategories(Commodity commodity, List<String> categories) {
+        try (ServiceMetrics.Timing ignored = ServiceMetrics.UPDATE_CATEGORIES.time()) {
+            mutate(journal -> {
+                commodity.mutex().lock();
+                try {
+                    Database.getInstance().updateCategories(commodity, categories);
+                    return journal.updateCategories(commodity);
+                } finally {
+                    commodity.mutex().unlock();
+                }
+            });
+        }
+    }
 
-        return result;
+    public ArrayList<Comment> getCommentsForCommodity(int commodityId) {
+        try (ServiceMetrics.Timing ignored = ServiceMetrics.COMMODITY_COMMENTS.time()) {
+            return new ArrayList<>(Database.getInstance().findCommentsByCommodity(commodityId));
+        }
     }
 
-    public ArrayList<Commodity> filterCommoditiesByName(String name) {
-        ArrayList<Commodity> result = new ArrayList<>();
-        for (Commodity commodity : Database.getInstance().getCommodities())
-            if (commodity.getName().contains(name))
-                result.add(commodity);
+    public Comment getCommentById(int commentId) throws NotExistentComment {
+        try (ServiceMetrics.Timing ignored = ServiceMetrics.GET_COMMENT.time()) {
+            Comment comment = Database.getInstance().findComment(commentId);
+            if (comment == null)
+                throw new NotExistentComment();
 
-        return result;
+            return comment;
+        }
     }
 
-    public ArrayList<Commodity> filterCommoditiesByProviderName(String name) {
-        String providerId = "";
-        for (Provider provider : Database.getInstance().getProviders()) {
-            if (provider.getName().equals(name)) {
-                providerId = provider.getId();
-                break;
-            }
+
+    public List<Commodity> filterCommoditiesByCategory(String category) {
+        try (ServiceMetrics.Timing ignored = ServiceMetrics.FILTER_BY_CATEGORY.time()) {
+            return queryCache.get(QueryCache.Kind.CATEGORY, category,
+                    () -> new ArrayList<>(Database.getInstance().findCommoditiesByCategory(category)));
         }
+    }
 
-        ArrayList<Commodity> result = new ArrayList<>();
+    public List<Commodity> filterCommoditiesByName(String name) {
+        return filterCommoditiesByName(name, Integer.MAX_VALUE);
+    }
+
+    public List<Commodity> filterCommoditiesByName(String name, int limit) {
+        try (ServiceMetrics.Timing ignored = ServiceMetrics.FILTER_BY_NAME.time()) {
+            return queryCache.get(QueryCache.Kind.NAME, name, limit,
+                    () -> Database.getInstance().searchCommoditiesByName(name, limit));
+        }
+    }
 
-        if (Objects.equals(providerId, ""))
-            return result;
+    public List<Commodity> filterCommoditiesByProviderName(String name) {
+        try (ServiceMetrics.Timing ignored = ServiceMetrics.FILTER_BY_PROVIDER.time()) {
+            return queryCache.get(QueryCache.Kind.PROVIDER, name, () -> {
+                Provider provider = Database.getInstance().findProviderByName(name);
+                if (provider == null)
+                    return new ArrayList<>();
+                return getCommoditiesProvidedByProvider(provider.getId());
+            });
+        }
+    }
 
-        for (Commodity commodity : Database.getInstance().getCommodities())
-            if (Objects.equals(commodity.getProviderId(), providerId))
-                result.add(commodity);
+    public ArrayList<Commodity> filterCommoditiesByPriceRange(Integer startPrice, Integer endPrice,
+                                                              boolean availableOnly, int limit)
+            throws MissingStartOrEndPrice, InvalidPriceRange {
+        try (ServiceMetrics.Timing ignored = ServiceMetrics.FILTER_BY_PRICE.time()) {
+            validatePriceRange(startPrice, endPrice);
+            return Database.getInstance().streamCommoditiesByPrice(startPrice, endPrice, availableOnly)
+                    .limit(limit)
+                    .collect(Collectors.toCollection(ArrayList::new));
+        }
+    }
 
-        return result;
+    public ArrayList<Commodity> queryCommodities(CommodityQuery query, PageRequest page)
+            throws MissingStartOrEndPrice, InvalidPriceRange {
+        try (ServiceMetrics.Timing ignored = ServiceMetrics.QUERY.time()) {
+            if (query.hasPriceRange())
+                validatePriceRange(query.startPrice(), query.endPrice());
+            return queryEngine.run(query, page);
+        }
     }
 
+    private static void validatePriceRange(Integer startPrice, Integer endPrice)
+            throws MissingStartOrEndPrice, InvalidPriceRange {
+        if (startPrice == null || endPrice == null)
+            throw new MissingStartOrEndPrice();
+        if (startPrice < 0 || startPrice > endPrice)
+            throw new InvalidPriceRange();
+    }
 
     public Map<String, Integer> getUserBuyList(String userId) throws NotExistentUser {
         User user = getUserById(userId);
         return user.getBuyList();
     }
 
+    public ArrayList<BuyListItem> getUserBuyListItems(String userId) throws NotExistentUser {
+        User user = getUserById(userId);
+        ArrayList<BuyListItem> items = new ArrayList<>();
+        for (var entry : user.buyListItems(commodityResolver).entrySet())
+            items.add(new BuyListItem(entry.getKey(), entry.getValue()));
+
+        return items;
+    }
+
     public Map<String, Integer> getUserPurchasedList(String userId) throws NotExistentUser {
         User user = getUserById(userId);
         return user.getPurchasedList();
     }
 
-    public void addUser(User user) throws UsernameAlreadyTaken {
-        for (User user1 : Database.getInstance().getUsers())
-            if (user1.getUsername().equals(user.getUsername()))
+    public void addUser(User user) throws UsernameAlreadyTaken, TooManyLoginAttempts {
+        try (ServiceMetrics.Timing ignored = ServiceMetrics.ADD_USER.time()) {
+            if (Database.getInstance().findUser(user.getUsername()) != null)
                 throw new UsernameAlreadyTaken();
+            if (user.getPassword() != null && !PasswordHasher.isHash(user.getPassword()))
+                user.setPassword(passwordHasher().hash(user.getPassword()));
+
+            mutate(journal -> {
+                if (!Database.getInstance().addUser(user))
+                    throw new UsernameAlreadyTaken();
+                return journal.addUser(user);
+            });
+        }
+    }
+
+    public void rateCommodity(Commodity commodity, String username, int score) {
+        try (ServiceMetrics.Timing ignored = ServiceMetrics.RATE.time()) {
+            mutate(journal -> {
+                long lsn;
+                commodity.mutex().lock();
+                try {
+                    commodity.addRate(username, score);
+                    lsn = journal.rate(commodity, username, score);
+                } finally {
+                    commodity.mutex().unlock();
+                }
+                Database.getInstance().refreshCommodity(commodity);
+                return lsn;
+            });
+        }
+    }
+
+    // Commodities are locked in id order so concurrent batches cannot deadlock, and all of them stay locked until the
+    // journal record is appended so the log orders these rates the same way memory does.
+    public void rateCommodities(String username, Map<String, Integer> scores) throws NotExistentCommodity {
+        try (ServiceMetrics.Timing ignored = ServiceMetrics.RATE_ALL.time()) {
+            Map<Commodity, Integer> commodities = resolveCommodities(scores,
+                    new TreeMap<>(Comparator.comparing(Commodity::getId)));
+
+            mutate(journal -> {
+                long lsn;
+                commodities.keySet().forEach(commodity -> commodity.mutex().lock());
+                try {
+                    for (var entry : commodities.entrySet())
+                        entry.getKey().addRate(username, entry.getValue());
+                    lsn = journal.rate(username, commodities);
+                } finally {
+                    commodities.keySet().forEach(commodity -> commodity.mutex().unlock());
+                }
+                commodities.keySet().forEach(Database.getInstance()::refreshCommodity);
+                return lsn;
+            });
+        }
+    }
 
-        Database.getInstance().addUser(user);
+    public void voteComment(int commentId, String username, Vote vote) throws NotExistentComment {
+        try (ServiceMetrics.Timing ignored = ServiceMetrics.VOTE.time()) {
+            Comment comment = getCommentById(commentId);
+
+            mutate(journal -> {
+                comment.mutex().lock();
+                try {
+                    comment.addUserVote(username, vote);
+                    return journal.vote(comment, username, vote);
+                } finally {
+                    comment.mutex().unlock();
+                }
+            });
+        }
     }
 
     public void addComment(Comment comment) {
-        Database.getInstance().addComment(comment);
+        try (ServiceMetrics.Timing ignored = ServiceMetrics.ADD_COMMENT.time()) {
+            mutate(journal -> {
+                Database.getInstance().addComment(comment);
+                return journal.addComment(comment);
+            });
+        }
     }
 
     public int generateCommentId() {
-        return Database.getInstance().getComments().size();
+        return Database.getInstance().nextCommentId();
+    }
+
+    static float similarityScore(Commodity commodity, Commodity candidate) {
+        return 11 * getInstance().isInSimilarCategoryWithFirstCommodity(commodity, candidate) + candidate.getRating();
     }
 
     public int isInSimilarCategoryWithFirstCommodity(Commodity c1, Commodity c2) {
@@ -226,32 +646,62 @@ public class Baloot {
         return 0;
     }
 
-    public ArrayList<Commodity> suggestSimilarCommodities(Commodity commodity) {
-        int MAX_NUMBER_OF_COMMODITY_SUGGESTIONS = 4;
-        ArrayList<Commodity> results = new ArrayList<>();
-        Hashtable<Commodity, Float> commodityScore = new Hashtable<>();
+    private record ScoredCommodity(Commodity commodity, float score) {
+    }
 
-        for (Commodity commodity1 : Database.getInstance().getCommodities()) {
-            if (commodity == commodity1)
-                continue;
+    public List<Commodity> suggestSimilarCommodities(Commodity commodity) {
+        try (ServiceMetrics.Timing ignored = ServiceMetrics.SUGGEST.time()) {
+            if (Database.getInstance().findCommodity(commodity.getId()) != commodity)
+                return findSimilarCommodities(commodity);
 
-            float score = 11 * isInSimilarCategoryWithFirstCommodity(commodity, commodity1) + commodity1.getRating();
-            commodityScore.put(commodity1, score);
+            return queryCache.get(QueryCache.Kind.SUGGESTION, commodity.getId(),
+                    () -> findSimilarCommodities(commodity));
         }
+    }
+
+    private ArrayList<Commodity> findSimilarCommodities(Commodity commodity) {
+        int MAX_NUMBER_OF_COMMODITY_SUGGESTIONS = 4;
+        int SIMILAR_CATEGORY_SCORE = 11;
+        PriorityQueue<ScoredCommodity> best = new PriorityQueue<>(Comparator.comparingDouble(ScoredCommodity::score));
+        Set<Commodity> similar = Collections.newSetFromMap(new IdentityHashMap<>());
 
-        List<Map.Entry<Commodity, Float>> list = new ArrayList<>(commodityScore.entrySet());
-        list.sort(Collections.reverseOrder(Map.Entry.comparingByValue()));
+        for (String category : commodity.getCategories()) {
+            for (Commodity candidate : Database.getInstance().findCommoditiesByCategory(category)) {
+                if (candidate == commodity || !similar.add(candidate))
+                    continue;
 
-        int count = 0;
-        for (Map.Entry<Commodity, Float> entry : list) {
-            results.add(entry.getKey());
+                offer(best, new ScoredCommodity(candidate, SIMILAR_CATEGORY_SCORE + candidate.getRating()),
+                        MAX_NUMBER_OF_COMMODITY_SUGGESTIONS);
+            }
+        }
 
-            count += 1;
-            if (count >= MAX_NUMBER_OF_COMMODITY_SUGGESTIONS)
+        Iterator<Commodity> byRating = Database.getInstance()
+                .streamCommodities(CommoditySortField.RATING, true, null).iterator();
+        while (byRating.hasNext()) {
+            Commodity candidate = byRating.next();
+            if (candidate == commodity || similar.contains(candidate))
+                continue;
+            if (best.size() >= MAX_NUMBER_OF_COMMODITY_SUGGESTIONS && candidate.getRating() <= best.peek().score())
                 break;
+
+            offer(best, new ScoredCommodity(candidate, candidate.getRating()), MAX_NUMBER_OF_COMMODITY_SUGGESTIONS);
         }
 
+        ArrayList<Commodity> results = new ArrayList<>(best.size());
+        while (!best.isEmpty())
+            results.add(best.poll().commodity());
+        Collections.reverse(results);
+
         return results;
     }
 
+    private static void offer(PriorityQueue<ScoredCommodity> best, ScoredCommodity candidate, int limit) {
+        if (best.size() < limit) {
+            best.add(candidate);
+        } else if (candidate.score() > best.peek().score()) {
+            best.poll();
+            best.add(candidate);
+        }
+    }
+
 }
@@ -0,0 +1,17 @@
+package service;
+
+import java.util.List;
+import java.util.Objects;
+
+// A conjunction of commodity predicates; null fields (and an empty category list) match everything.
+public record CommodityQuery(String name, List<String> categories, String provider, Integer startPrice,
+                             Integer endPrice, boolean availableOnly) {
+    public CommodityQuery {
+        categories = categories == null ? List.of()
+                : categories.stream().filter(Objects::nonNull).distinct().toList();
+    }
+
+    public boolean hasPriceRange() {
+        return startPrice != null || endPrice != null;
+    }
+}
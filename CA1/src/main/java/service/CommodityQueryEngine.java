@@ -0,0 +1,161 @@
+package service;
+
+import database.CommodityNameIndex;
+import database.CommoditySortField;
+import database.Database;
+import model.Commodity;
+import model.Provider;
+import utils.PageRequest;
+import utils.PostingList;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+// Plans a CommodityQuery over the database indexes: every indexed predicate is sized (counting stops once it can no
+// longer beat the smallest one), the smallest becomes the driver, and the posting lists that are close enough in size
+// are intersected with it. Predicates left out of the intersection are checked row by row while the page is filled,
+// so only the requested page is ever collected.
+public class CommodityQueryEngine {
+    // Indexes more than this many times larger than the driver are cheaper to apply as row filters.
+    private static final int INTERSECT_RATIO = 8;
+    // Below this many candidates the remaining predicates are applied as row filters as well.
+    private static final int FILTER_THRESHOLD = 64;
+
+    private static final class IndexScan {
+        private final Supplier<Stream<Commodity>> rows;
+        private long estimate = Long.MAX_VALUE;
+
+        private IndexScan(Supplier<Stream<Commodity>> rows) {
+            this.rows = rows;
+        }
+    }
+
+    public ArrayList<Commodity> run(CommodityQuery query, PageRequest page) {
+        Database database = Database.getInstance();
+
+        String providerId = null;
+        if (query.provider() != null) {
+            Provider provider = database.findProviderByName(query.provider());
+            if (provider == null)
+                return new ArrayList<>();
+            providerId = provider.getId();
+        }
+        Predicate<Commodity> filter = matcher(query, providerId);
+
+        IndexScan priceScan = null;
+        List<IndexScan> scans = new ArrayList<>();
+        if (providerId != null) {
+            String id = providerId;
+            scans.add(new IndexScan(() -> database.findCommoditiesByProvider(id).stream()));
+        }
+        for (String category : query.categories())
+            scans.add(new IndexScan(() -> database.findCommoditiesByCategory(category).stream()));
+        if (query.hasPriceRange()) {
+            priceScan = new IndexScan(() -> database.streamCommoditiesByPrice(query.startPrice(), query.endPrice(),
+                    query.availableOnly()));
+            scans.add(priceScan);
+        }
+        if (query.name() != null && query.name().length() >= CommodityNameIndex.GRAM_LENGTH)
+            scans.add(new IndexScan(memoize(() -> database.findCommoditiesByName(query.name()))));
+
+        if (scans.isEmpty())
+            return page(scanInOrder(database, page).filter(filter), page, true);
+
+        List<IndexScan> plan = plan(scans);
+        if (plan.get(0) == priceScan && page.getSort() == CommoditySortField.PRICE && !page.isDescending())
+            return page(priceScan.rows.get().filter(filter), page, true);
+
+        int[] ids = PostingList.of(plan.get(0).rows.get());
+        for (IndexScan scan : plan.subList(1, plan.size())) {
+            if (ids.length <= FILTER_THRESHOLD || scan.estimate > (long) ids.length * INTERSECT_RATIO)
+                break;
+            ids = PostingList.intersect(ids, PostingList.of(scan.rows.get()));
+        }
+
+        Stream<Commodity> rows = IntStream.of(ids)
+                .mapToObj(database::findCommodityByIndex)
+                .filter(Objects::nonNull)
+                .filter(filter);
+        return page(rows, page, false);
+    }
+
+    private static List<IndexScan> plan(List<IndexScan> scans) {
+        long smallest = Long.MAX_VALUE;
+        for (IndexScan scan : scans) {
+            if (smallest <= FILTER_THRESHOLD)
+                break;
+
+            long bound = smallest == Long.MAX_VALUE ? Long.MAX_VALUE : smallest * INTERSECT_RATIO;
+            long count = scan.rows.get().limit(bound).count();
+            if (count < bound) {
+                scan.estimate = count;
+                smallest = Math.min(smallest, count);
+            }
+        }
+
+        List<IndexScan> plan = new ArrayList<>(scans);
+        plan.sort(Comparator.comparingLong(scan -> scan.estimate));
+        return plan;
+    }
+
+    private static Stream<Commodity> scanInOrder(Database database, PageRequest page) {
+        if (page.getSort() == null)
+            return database.getCommodities().stream();
+
+        return database.streamCommodities(page.getSort(), page.isDescending(), null);
+    }
+
+    private static ArrayList<Commodity> page(Stream<Commodity> rows, PageRequest page, boolean ordered) {
+        if (ordered || page.getSort() == null)
+            return rows.skip(page.getOffset())
+                    .limit(page.getLimit())
+                    .collect(Collectors.toCollection(ArrayList::new));
+
+        Comparator<Commodity> order = page.getSort().comparator();
+        if (page.isDescending())
+            order = order.reversed();
+
+        long size = (long) page.getOffset() + page.getLimit();
+        if (size >= Integer.MAX_VALUE)
+            return rows.sorted(order)
+                    .skip(page.getOffset())
+                    .collect(Collectors.toCollection(ArrayList::new));
+
+        PriorityQueue<Commodity> top = new PriorityQueue<>(order.reversed());
+        rows.forEach(commodity -> {
+            top.add(commodity);
+            if (top.size() > size)
+                top.poll();
+        });
+
+        ArrayList<Commodity> result = new ArrayList<>(top);
+        result.sort(order);
+        return new ArrayList<>(result.subList(Math.min(page.getOffset(), result.size()), result.size()));
+    }
+
+    private static Predicate<Commodity> matcher(CommodityQuery query, String providerId) {
+        return commodity -> (query.name() == null || CommodityNameIndex.matches(commodity, query.name()))
+                && commodity.getCategories().containsAll(query.categories())
+                && (providerId == null || providerId.equals(commodity.getProviderId()))
+                && (!query.hasPriceRange()
+                        || commodity.getPrice() >= query.startPrice() && commodity.getPrice() <= query.endPrice())
+                && (!query.availableOnly() || commodity.getInStock() > 0);
+    }
+
+    private static Supplier<Stream<Commodity>> memoize(Supplier<List<Commodity>> source) {
+        List<List<Commodity>> holder = new ArrayList<>(1);
+        return () -> {
+            if (holder.isEmpty())
+                holder.add(source.get());
+            return holder.get(0).stream();
+        };
+    }
+}
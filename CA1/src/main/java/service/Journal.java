@@ -0,0 +1,407 @@
+package service;
+
+import database.Database;
+import database.WriteAheadLog;
+import exceptions.CommodityIsNotInBuyList;
+import exceptions.InvalidCreditRange;
+import model.Comment;
+import model.Commodity;
+import model.User;
+import model.Vote;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+public class Journal implements Closeable {
+    private static final byte ADD_USER = 1;
+    private static final byte ADD_CREDIT = 2;
+    private static final byte ADD_BUY_ITEM = 3;
+    private static final byte REMOVE_BUY_ITEM = 4;
+    private static final byte CHECKOUT = 5;
+    private static final byte RATE = 6;
+    private static final byte VOTE = 7;
+    private static final byte ADD_COMMENT = 8;
+    private static final byte ADD_BUY_ITEMS = 9;
+    private static final byte RATES = 10;
+    private static final byte SET_PASSWORD = 11;
+    private static final byte UPDATE_CATEGORIES = 12;
+
+    private interface RecordWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    public interface Checkpoint {
+        void capture(long lastLsn) throws IOException;
+    }
+
+    public interface Publication {
+        void publish() throws IOException;
+    }
+
+    private final WriteAheadLog log;
+    private final ReadWriteLock checkpointLock = new ReentrantReadWriteLock();
+    private volatile boolean closed;
+
+    private Journal(WriteAheadLog log) {
+        this.log = log;
+    }
+
+    public static Journal disabled() {
+        return new Journal(null);
+    }
+
+    public static Journal open(Path path, WriteAheadLog.Durability durability, long afterLsn) throws IOException {
+        return new Journal(WriteAheadLog.open(path, durability, afterLsn, (lsn, payload) -> replay(payload)));
+    }
+
+    public Lock mutationLock() {
+        return checkpointLock.readLock();
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public void checkWritable() {
+        if (log != null)
+            log.checkWritable();
+    }
+
+    public void awaitDurable(long lsn) {
+        if (log != null)
+            log.awaitDurable(lsn);
+    }
+
+    // Mutations stall for the whole capture: the log is rotated and every table is serialized under the write lock,
+    // so a checkpoint costs writers a full dump. Only syncing the capture and dropping the retired log segment run
+    // after they resume.
+    public void checkpoint(Checkpoint checkpoint, Publication publication) throws IOException {
+        long lastLsn;
+        checkpointLock.writeLock().lock();
+        try {
+            lastLsn = log == null ? 0 : log.rotate();
+            checkpoint.capture(lastLsn);
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+
+        publication.publish();
+        if (log != null)
+            log.retire(lastLsn);
+    }
+
+    public long addUser(User user) {
+        return append(out -> {
+            out.writeByte(ADD_USER);
+            writeString(out, user.getUsername());
+            writeString(out, user.getPassword());
+            writeString(out, user.getEmail());
+            writeString(out, user.getBirthDate());
+            writeString(out, user.getAddress());
+        });
+    }
+
+    public long addCredit(User user, float amount) {
+        return append(out -> {
+            out.writeByte(ADD_CREDIT);
+            writeString(out, user.getUsername());
+            out.writeFloat(amount);
+        });
+    }
+
+    public long addBuyItem(User user, Commodity commodity, int quantity) {
+        return append(out -> {
+            out.writeByte(ADD_BUY_ITEM);
+            writeString(out, user.getUsername());
+            writeString(out, commodity.getId());
+            out.writeInt(quantity);
+        });
+    }
+
+    public long addBuyItems(User user, Map<Commodity, Integer> quantities) {
+        return append(out -> {
+            out.writeByte(ADD_BUY_ITEMS);
+            writeString(out, user.getUsername());
+            out.writeInt(quantities.size());
+            for (var entry : quantities.entrySet()) {
+                writeString(out, entry.getKey().getId());
+                out.writeInt(entry.getValue());
+            }
+        });
+    }
+
+    public long removeBuyItem(User user, Commodity commodity) {
+        return append(out -> {
+            out.writeByte(REMOVE_BUY_ITEM);
+            writeString(out, user.getUsername());
+            writeString(out, commodity.getId());
+        });
+    }
+
+    public long checkout(User user, long amount, Map<String, Integer> purchased) {
+        return append(out -> {
+            out.writeByte(CHECKOUT);
+            writeString(out, user.getUsername());
+            out.writeLong(amount);
+            out.writeInt(purchased.size());
+            for (var entry : purchased.entrySet()) {
+                writeString(out, entry.getKey());
+                out.writeInt(entry.getValue());
+            }
+        });
+    }
+
+    public long rate(Commodity commodity, String username, int score) {
+        return append(out -> {
+            out.writeByte(RATE);
+            writeString(out, commodity.getId());
+            writeString(out, username);
+            out.writeInt(score);
+        });
+    }
+
+    public long rate(String username, Map<Commodity, Integer> scores) {
+        return append(out -> {
+            out.writeByte(RATES);
+            writeString(out, username);
+            out.writeInt(scores.size());
+            for (var entry : scores.entrySet()) {
+                writeString(out, entry.getKey().getId());
+                out.writeInt(entry.getValue());
+            }
+        });
+    }
+
+    public long vote(Comment comment, String username, Vote vote) {
+        return append(out -> {
+            out.writeByte(VOTE);
+            out.writeInt(comment.getId());
+            writeString(out, username);
+            out.writeByte(vote.ordinal());
+        });
+    }
+
+    public long addComment(Comment comment) {
+        return append(out -> {
+            out.writeByte(ADD_COMMENT);
+            out.writeInt(comment.getId());
+            writeString(out, comment.getUserEmail());
+            writeString(out, comment.getUsername());
+            out.writeInt(comment.getCommodityId());
+            writeString(out, comment.getText());
+            writeString(out, comment.getDate());
+        });
+    }
+
+    public long setPassword(User user) {
+        return append(out -> {
+            out.writeByte(SET_PASSWORD);
+            writeString(out, user.getUsername());
+            writeString(out, user.getPassword());
+        });
+    }
+
+    public long updateCategories(Commodity commodity) {
+        return append(out -> {
+            out.writeByte(UPDATE_CATEGORIES);
+            writeString(out, commodity.getId());
+            List<String> categories = commodity.getCategories();
+            out.writeInt(categories.size());
+            for (String category : categories)
+                writeString(out, category);
+        });
+    }
+
+    private long append(RecordWriter writer) {
+        if (log == null)
+            return 0;
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writer.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return log.append(bytes.toByteArray());
+    }
+
+    private static void replay(byte[] payload) {
+        Database database = Database.getInstance();
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            switch (in.readByte()) {
+                case ADD_USER -> database.addUser(new User(readString(in), readString(in), readString(in),
+                        readString(in), readString(in)));
+                case ADD_CREDIT -> {
+                    User user = database.findUser(readString(in));
+                    float amount = in.readFloat();
+                    if (user != null)
+                        user.addCredit(amount);
+                }
+                case ADD_BUY_ITEM -> {
+                    User user = database.findUser(readString(in));
+                    Commodity commodity = database.findCommodity(readString(in));
+                    int quantity = in.readInt();
+                    if (user != null && commodity != null)
+                        user.addBuyItem(commodity, quantity);
+                }
+                case ADD_BUY_ITEMS -> {
+                    User user = database.findUser(readString(in));
+                    Map<Commodity, Integer> quantities = new HashMap<>();
+                    for (int count = in.readInt(); count > 0; count--) {
+                        Commodity commodity = database.findCommodity(readString(in));
+                        int quantity = in.readInt();
+                        if (commodity != null)
+                            quantities.put(commodity, quantity);
+                    }
+                    if (user != null)
+                        user.addBuyItems(quantities);
+                }
+                case REMOVE_BUY_ITEM -> {
+                    User user = database.findUser(readString(in));
+                    Commodity commodity = database.findCommodity(readString(in));
+                    if (user != null && commodity != null)
+                        user.removeItemFromBuyList(commodity);
+                }
+                case CHECKOUT -> replayCheckout(database, in);
+                case RATE -> {
+                    Commodity commodity = database.findCommodity(readString(in));
+                    String username = readString(in);
+                    int score = in.readInt();
+                    if (commodity != null) {
+                        commodity.addRate(username, score);
+                        database.refreshCommodity(commodity);
+                    }
+                }
+                case RATES -> {
+                    String username = readString(in);
+                    for (int count = in.readInt(); count > 0; count--) {
+                        Commodity commodity = database.findCommodity(readString(in));
+                        int score = in.readInt();
+                        if (commodity != null) {
+                            commodity.addRate(username, score);
+                            database.refreshCommodity(commodity);
+                        }
+                    }
+                }
+                case VOTE -> {
+                    Comment comment = database.findComment(in.readInt());
+                    String username = readString(in);
+                    Vote vote = Vote.values()[in.readByte()];
+                    if (comment != null)
+                        comment.addUserVote(username, vote);
+                }
+                case ADD_COMMENT -> {
+                    Comment comment = new Comment();
+                    comment.setId(in.readInt());
+                    comment.setUserEmail(readString(in));
+                    comment.setUsername(readString(in));
+                    comment.setCommodityId(in.readInt());
+                    comment.setText(readString(in));
+                    comment.setDate(readString(in));
+                    database.addComment(comment);
+                }
+                case SET_PASSWORD -> {
+                    User user = database.findUser(readString(in));
+                    String password = readString(in);
+                    if (user != null)
+                        user.setPassword(password);
+                }
+                case UPDATE_CATEGORIES -> {
+                    Commodity commodity = database.findCommodity(readString(in));
+                    int count = in.readInt();
+                    List<String> categories = new ArrayList<>(count);
+                    for (int i = 0; i < count; i++)
+                        categories.add(readString(in));
+                    if (commodity != null)
+                        database.updateCategories(commodity, categories);
+                }
+                default -> throw new IOException("Unknown journal record type");
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InvalidCreditRange | CommodityIsNotInBuyList ignored) {
+        }
+    }
+
+    private static void replayCheckout(Database database, DataInputStream in) throws IOException {
+        User user = database.findUser(readString(in));
+        long amount = in.readLong();
+        int count = in.readInt();
+        Map<String, Integer> purchased = new HashMap<>(count * 2);
+        for (int i = 0; i < count; i++)
+            purchased.put(readString(in), in.readInt());
+
+        if (user == null)
+            return;
+
+        user.mutex().lock();
+        try {
+            user.setCredit(user.getCredit() - amount);
+            for (var entry : purchased.entrySet()) {
+                user.addPurchasedItem(entry.getKey(), entry.getValue());
+                Commodity commodity = database.findCommodity(entry.getKey());
+                if (commodity == null)
+                    continue;
+
+                commodity.mutex().lock();
+                try {
+                    commodity.setInStock(commodity.getInStock() - entry.getValue());
+                } finally {
+                    commodity.mutex().unlock();
+                }
+                database.stockChanged(commodity);
+            }
+            user.setBuyList(new HashMap<>());
+        } finally {
+            user.mutex().unlock();
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0)
+            return null;
+
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Waits for in-flight mutations, so nothing can append to the log after it is closed.
+    @Override
+    public void close() throws IOException {
+        checkpointLock.writeLock().lock();
+        try {
+            closed = true;
+            if (log != null)
+                log.close();
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+    }
+}
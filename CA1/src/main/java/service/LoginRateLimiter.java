@@ -0,0 +1,51 @@
+package service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class LoginRateLimiter {
+    private record Bucket(double tokens, long refilledAt) {
+    }
+
+    private final Cache<String, AtomicReference<Bucket>> buckets;
+    private final int burst;
+    private final double tokensPerNano;
+
+    public LoginRateLimiter(int burst, int perMinute) {
+        this.burst = burst;
+        this.tokensPerNano = perMinute / (double) Duration.ofMinutes(1).toNanos();
+        this.buckets = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .maximumSize(1_000_000)
+                .build();
+    }
+
+    public boolean tryAcquire(String key) {
+        if (burst <= 0 || key == null)
+            return true;
+
+        AtomicReference<Bucket> bucket = buckets.get(key, k -> new AtomicReference<>(new Bucket(burst, System.nanoTime())));
+        while (true) {
+            Bucket current = bucket.get();
+            long now = System.nanoTime();
+            double tokens = Math.min(burst, current.tokens() + (now - current.refilledAt()) * tokensPerNano);
+            if (tokens < 1)
+                return false;
+            if (bucket.compareAndSet(current, new Bucket(tokens - 1, now)))
+                return true;
+        }
+    }
+
+    // Gives back the token taken by tryAcquire, e.g. once a login attempt has succeeded.
+    public void release(String key) {
+        if (burst <= 0 || key == null)
+            return;
+
+        AtomicReference<Bucket> bucket = buckets.getIfPresent(key);
+        if (bucket != null)
+            bucket.updateAndGet(current -> new Bucket(Math.min(burst, current.tokens() + 1), current.refilledAt()));
+    }
+}
@@ -0,0 +1,104 @@
+package service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import exceptions.TooManyLoginAttempts;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+public class PasswordHasher {
+    private static final Pattern BCRYPT_HASH = Pattern.compile("\\$2[aby]?\\$\\d\\d\\$[./0-9A-Za-z]{53}");
+
+    private record Verified(String hash, byte[] digest) {
+    }
+
+    private final BCryptPasswordEncoder encoder;
+    private final ExecutorService executor;
+    private final Cache<String, Verified> recentlyVerified;
+    private final byte[] salt = new byte[16];
+
+    public PasswordHasher(int strength, int threads, int queueSize, Duration rememberFor) {
+        this.encoder = new BCryptPasswordEncoder(strength);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = ExecutorServiceMetrics.monitor(Metrics.globalRegistry, new ThreadPoolExecutor(threads, threads,
+                0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize), runnable -> {
+            Thread thread = new Thread(runnable, "baloot-password-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }), "baloot.passwords", List.of());
+        this.recentlyVerified = Caffeine.newBuilder()
+                .expireAfterWrite(rememberFor)
+                .maximumSize(100_000)
+                .build();
+        new SecureRandom().nextBytes(salt);
+    }
+
+    public static boolean isHash(String password) {
+        return password != null && BCRYPT_HASH.matcher(password).matches();
+    }
+
+    public String hash(String password) throws TooManyLoginAttempts {
+        return run(() -> encoder.encode(password));
+    }
+
+    // Stored passwords that are not bcrypt hashes yet (e.g. the JSON seed) are compared in constant time;
+    // callers are expected to replace them with hash() after a successful match.
+    public boolean matches(String username, String password, String stored) throws TooManyLoginAttempts {
+        if (password == null || stored == null)
+            return false;
+        if (!isHash(stored))
+            return MessageDigest.isEqual(password.getBytes(StandardCharsets.UTF_8),
+                    stored.getBytes(StandardCharsets.UTF_8));
+
+        byte[] digest = digest(password);
+        Verified verified = recentlyVerified.getIfPresent(username);
+        if (verified != null && verified.hash().equals(stored) && MessageDigest.isEqual(verified.digest(), digest))
+            return true;
+
+        if (!run(() -> encoder.matches(password, stored)))
+            return false;
+
+        recentlyVerified.put(username, new Verified(stored, digest));
+        return true;
+    }
+
+    private <T> T run(Callable<T> task) throws TooManyLoginAttempts {
+        try {
+            return executor.submit(task).get();
+        } catch (RejectedExecutionException e) {
+            throw new TooManyLoginAttempts();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private byte[] digest(String password) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            sha256.update(salt);
+            return sha256.digest(password.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
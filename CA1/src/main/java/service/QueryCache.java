@@ -0,0 +1,179 @@
+package service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import database.CatalogListener;
+import database.Database;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import model.Commodity;
+import model.Provider;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+// Entries are stamped with the clock value read before their query ran and are only served while nothing they depend
+// on has been invalidated since, so invalidation never scans the cache and a query racing an update is never kept.
+public class QueryCache implements CatalogListener {
+    public enum Kind {
+        NAME, CATEGORY, PROVIDER, SUGGESTION
+    }
+
+    private static final int RATING_LOG_SIZE = 1024;
+
+    private record Key(Kind kind, String value, int limit) {
+    }
+
+    private record Entry(long stamp, long ratingSequence, float floor, List<Commodity> result) {
+    }
+
+    private record RatingChange(long sequence, Commodity commodity) {
+    }
+
+    private final Cache<Key, Entry> cache;
+    private final AtomicLong clock = new AtomicLong();
+    private final Map<Kind, AtomicLong> kindStamps = new EnumMap<>(Kind.class);
+    private final Map<Key, Long> valueStamps = new ConcurrentHashMap<>();
+    private final AtomicLong ratingSequence = new AtomicLong();
+    private final AtomicReferenceArray<RatingChange> ratingChanges = new AtomicReferenceArray<>(RATING_LOG_SIZE);
+
+    public QueryCache(String name, long maximumSize, Duration timeToLive) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(Metrics.globalRegistry, cache, name);
+        for (Kind kind : Kind.values())
+            kindStamps.put(kind, new AtomicLong());
+    }
+
+    public void setMaximumSize(long maximumSize) {
+        cache.policy().eviction().ifPresent(eviction -> eviction.setMaximum(maximumSize));
+    }
+
+    public List<Commodity> get(Kind kind, String value, int limit, Supplier<List<Commodity>> query) {
+        if (value == null)
+            return List.copyOf(query.get());
+
+        Key key = new Key(kind, value, limit);
+        Entry entry = cache.getIfPresent(key);
+        if (entry != null && isFresh(key, entry))
+            return entry.result();
+
+        long stamp = clock.get();
+        long sequence = ratingSequence.get();
+        List<Commodity> result = List.copyOf(query.get());
+        cache.put(key, new Entry(stamp, sequence, kind == Kind.SUGGESTION ? floor(value, result) : 0, result));
+        return result;
+    }
+
+    public List<Commodity> get(Kind kind, String value, Supplier<List<Commodity>> query) {
+        return get(kind, value, 0, query);
+    }
+
+    private boolean isFresh(Key key, Entry entry) {
+        if (entry.stamp() < kindStamps.get(key.kind()).get())
+            return false;
+
+        Long valueStamp = valueStamps.get(new Key(key.kind(), key.value(), 0));
+        if (valueStamp != null && entry.stamp() < valueStamp)
+            return false;
+
+        return key.kind() != Kind.SUGGESTION || !ratingsChangedFor(key.value(), entry);
+    }
+
+    // A rating change only matters to a suggestion list if it touched one of its members or lifted another commodity
+    // to at least the list's lowest score; anything older than the log is assumed to matter.
+    private boolean ratingsChangedFor(String commodityId, Entry entry) {
+        long latest = ratingSequence.get();
+        if (latest - entry.ratingSequence() > RATING_LOG_SIZE)
+            return true;
+
+        Commodity commodity = Database.getInstance().findCommodity(commodityId);
+        for (long sequence = entry.ratingSequence() + 1; sequence <= latest; sequence++) {
+            RatingChange change = ratingChanges.get((int) (sequence % RATING_LOG_SIZE));
+            if (change == null || change.sequence() != sequence || commodity == null)
+                return true;
+            if (change.commodity() == commodity)
+                continue;
+            if (entry.result().contains(change.commodity())
+                    || Baloot.similarityScore(commodity, change.commodity()) >= entry.floor())
+                return true;
+        }
+        return false;
+    }
+
+    private static float floor(String commodityId, List<Commodity> suggestions) {
+        Commodity commodity = Database.getInstance().findCommodity(commodityId);
+        float floor = Float.POSITIVE_INFINITY;
+        for (Commodity suggestion : suggestions)
+            floor = Math.min(floor, commodity == null ? 0 : Baloot.similarityScore(commodity, suggestion));
+
+        return suggestions.isEmpty() ? Float.NEGATIVE_INFINITY : floor;
+    }
+
+    @Override
+    public void onCatalogReset() {
+        for (Kind kind : Kind.values())
+            invalidateAll(kind);
+        cache.invalidateAll();
+        valueStamps.clear();
+    }
+
+    @Override
+    public void onProvidersReset() {
+        invalidateAll(Kind.PROVIDER);
+    }
+
+    @Override
+    public void onProviderAdded(Provider provider) {
+        invalidate(Kind.PROVIDER, provider.getName());
+    }
+
+    @Override
+    public void onCommodityAdded(Commodity commodity) {
+        invalidateAll(Kind.NAME);
+        invalidateCategories(commodity.getCategories());
+
+        Provider provider = Database.getInstance().findProvider(commodity.getProviderId());
+        if (provider != null)
+            invalidate(Kind.PROVIDER, provider.getName());
+
+        invalidateAll(Kind.SUGGESTION);
+    }
+
+    @Override
+    public void onCommodityChanged(Commodity commodity) {
+        long sequence = ratingSequence.incrementAndGet();
+        ratingChanges.set((int) (sequence % RATING_LOG_SIZE), new RatingChange(sequence, commodity));
+    }
+
+    @Override
+    public void onCategoriesChanged(Commodity commodity, Collection<String> oldCategories) {
+        invalidateCategories(oldCategories);
+        invalidateCategories(commodity.getCategories());
+        invalidateAll(Kind.SUGGESTION);
+    }
+
+    private void invalidateCategories(Collection<String> categories) {
+        for (String category : categories)
+            invalidate(Kind.CATEGORY, category);
+    }
+
+    private void invalidate(Kind kind, String value) {
+        if (value != null)
+            valueStamps.merge(new Key(kind, value, 0), clock.incrementAndGet(), Math::max);
+    }
+
+    private void invalidateAll(Kind kind) {
+        kindStamps.get(kind).accumulateAndGet(clock.incrementAndGet(), Math::max);
+    }
+}
@@ -0,0 +1,59 @@
+package service;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+enum ServiceMetrics {
+    LOGIN("login"),
+    ADD_TO_BUY_LIST("addCommodityToUserBuyList"),
+    ADD_ALL_TO_BUY_LIST("addCommoditiesToUserBuyList"),
+    REMOVE_FROM_BUY_LIST("removeCommodityFromUserBuyList"),
+    ADD_CREDIT("addCredit"),
+    BUY_LIST_PRICE("getCurrentBuyListPrice"),
+    CHECKOUT("withdrawPayableAmount"),
+    GET_USER("getUserById"),
+    GET_PROVIDER("getProviderById"),
+    GET_COMMODITY("getCommodityById"),
+    GET_COMMENT("getCommentById"),
+    GET_USERS("getUsersByIds"),
+    GET_PROVIDERS("getProvidersByIds"),
+    GET_COMMODITIES("getCommoditiesByIds"),
+    PAGE_COMMODITIES("getCommodities"),
+    PROVIDER_COMMODITIES("getCommoditiesProvidedByProvider"),
+    UPDATE_CATEGORIES("updateCommodityCategories"),
+    COMMODITY_COMMENTS("getCommentsForCommodity"),
+    FILTER_BY_CATEGORY("filterCommoditiesByCategory"),
+    FILTER_BY_NAME("filterCommoditiesByName"),
+    FILTER_BY_PROVIDER("filterCommoditiesByProviderName"),
+    FILTER_BY_PRICE("filterCommoditiesByPriceRange"),
+    QUERY("queryCommodities"),
+    ADD_USER("addUser"),
+    RATE("rateCommodity"),
+    RATE_ALL("rateCommodities"),
+    VOTE("voteComment"),
+    ADD_COMMENT("addComment"),
+    SUGGEST("suggestSimilarCommodities");
+
+    private final Timer timer;
+
+    ServiceMetrics(String method) {
+        timer = Timer.builder("baloot.service")
+                .tag("method", method)
+                .publishPercentileHistogram()
+                .register(Metrics.globalRegistry);
+    }
+
+    // try (ServiceMetrics.Timing ignored = ServiceMetrics.LOGIN.time()) { ... } times the block however it exits.
+    Timing time() {
+        return new Timing(timer, System.nanoTime());
+    }
+
+    record Timing(Timer timer, long start) implements AutoCloseable {
+        @Override
+        public void close() {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package utils;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Assigns each distinct id string a dense int so per-entity maps can be keyed by primitives. Ids are never released,
+// and 0 always stands for null.
+public class IdTable {
+    public static final IdTable users = new IdTable();
+    public static final IdTable commodities = new IdTable();
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile String[] names = new String[1024];
+    private int size = 1;
+
+    public int intern(String name) {
+        if (name == null)
+            return 0;
+
+        Integer id = ids.get(name);
+        if (id != null)
+            return id;
+
+        lock.lock();
+        try {
+            id = ids.get(name);
+            if (id != null)
+                return id;
+
+            if (size == names.length)
+                names = Arrays.copyOf(names, size * 2);
+            names[size] = name;
+            ids.put(name, size);
+            return size++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public String name(int id) {
+        return names[id];
+    }
+}
@@ -0,0 +1,164 @@
+package utils;
+
+// Open-addressing int -> int map with linear probing. Key 0 marks an empty slot, so it is kept beside the table.
+// Arrays are allocated on the first put, which keeps empty maps at a few words. Not thread-safe.
+public class IntIntMap {
+    public interface EntryConsumer {
+        void accept(int key, int value);
+    }
+
+    private static final int MIN_CAPACITY = 4;
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+    private boolean hasZeroKey;
+    private int zeroValue;
+
+    public IntIntMap() {
+    }
+
+    public IntIntMap(IntIntMap other) {
+        this.keys = other.keys == null ? null : other.keys.clone();
+        this.values = other.values == null ? null : other.values.clone();
+        this.size = other.size;
+        this.hasZeroKey = other.hasZeroKey;
+        this.zeroValue = other.zeroValue;
+    }
+
+    public int size() {
+        return hasZeroKey ? size + 1 : size;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public boolean containsKey(int key) {
+        if (key == 0)
+            return hasZeroKey;
+
+        return keys != null && keys[slot(key)] == key;
+    }
+
+    public int get(int key, int defaultValue) {
+        if (key == 0)
+            return hasZeroKey ? zeroValue : defaultValue;
+        if (keys == null)
+            return defaultValue;
+
+        int slot = slot(key);
+        return keys[slot] == key ? values[slot] : defaultValue;
+    }
+
+    public void put(int key, int value) {
+        if (key == 0) {
+            hasZeroKey = true;
+            zeroValue = value;
+            return;
+        }
+
+        if (keys == null) {
+            keys = new int[MIN_CAPACITY];
+            values = new int[MIN_CAPACITY];
+        }
+
+        int slot = slot(key);
+        if (keys[slot] != key) {
+            if ((size + 1) * 4 > keys.length * 3) {
+                resize(keys.length * 2);
+                slot = slot(key);
+            }
+            keys[slot] = key;
+            size++;
+        }
+        values[slot] = value;
+    }
+
+    public int addTo(int key, int delta) {
+        int value = get(key, 0) + delta;
+        put(key, value);
+        return value;
+    }
+
+    public boolean remove(int key) {
+        if (key == 0) {
+            boolean removed = hasZeroKey;
+            hasZeroKey = false;
+            zeroValue = 0;
+            return removed;
+        }
+
+        if (keys == null)
+            return false;
+
+        int slot = slot(key);
+        if (keys[slot] != key)
+            return false;
+
+        // Backward-shift deletion keeps every probe chain contiguous without tombstones.
+        int mask = keys.length - 1;
+        int gap = slot;
+        for (int next = (gap + 1) & mask; keys[next] != 0; next = (next + 1) & mask) {
+            int home = hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+        }
+        keys[gap] = 0;
+        values[gap] = 0;
+        size--;
+        return true;
+    }
+
+    public void clear() {
+        keys = null;
+        values = null;
+        size = 0;
+        hasZeroKey = false;
+        zeroValue = 0;
+    }
+
+    public void forEach(EntryConsumer consumer) {
+        if (hasZeroKey)
+            consumer.accept(0, zeroValue);
+        if (keys == null)
+            return;
+
+        for (int i = 0; i < keys.length; i++)
+            if (keys[i] != 0)
+                consumer.accept(keys[i], values[i]);
+    }
+
+    private int slot(int key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != 0 && keys[slot] != key)
+            slot = (slot + 1) & mask;
+
+        return slot;
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[capacity];
+        values = new int[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == 0)
+                continue;
+
+            int slot = slot(oldKeys[i]);
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+
+}
@@ -0,0 +1,35 @@
+package utils;
+
+import database.CommoditySortField;
+import lombok.Getter;
+
+import java.util.Map;
+
+@Getter
+public class PageRequest {
+    private final CommoditySortField sort;
+    private final boolean descending;
+    private final String after;
+    private final int offset;
+    private final int limit;
+
+    public PageRequest(String sort, String order, String after, String offset, String limit) {
+        this.sort = CommoditySortField.fromName(sort);
+        this.descending = "desc".equalsIgnoreCase(order);
+        this.after = after;
+        this.offset = offset == null ? 0 : Integer.parseInt(offset);
+        this.limit = limit == null ? Integer.MAX_VALUE : Integer.parseInt(limit);
+
+        if (this.offset < 0 || this.limit < 0)
+            throw new IllegalArgumentException("offset and limit must not be negative");
+    }
+
+    public static PageRequest fromMap(Map<String, String> input) {
+        return new PageRequest(input.get("sort"), input.get("order"), input.get("after"),
+                input.get("offset"), input.get("limit"));
+    }
+
+    public boolean isUnpaged() {
+        return sort == null && after == null && offset == 0 && limit == Integer.MAX_VALUE;
+    }
+}
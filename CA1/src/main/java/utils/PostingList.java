@@ -0,0 +1,50 @@
+package utils;
+
+import model.Commodity;
+
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+// Sorted arrays of IdTable.commodities indexes, so index lookups can be intersected without touching the commodities.
+public class PostingList {
+    private PostingList() {
+    }
+
+    public static int[] of(Stream<Commodity> commodities) {
+        int[] ids = commodities.mapToInt(commodity -> IdTable.commodities.intern(commodity.getId())).toArray();
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    public static int[] intersect(int[] a, int[] b) {
+        if (a.length > b.length)
+            return intersect(b, a);
+
+        int[] result = new int[a.length];
+        int size = 0;
+        int from = 0;
+        for (int id : a) {
+            from = gallop(b, from, id);
+            if (from == b.length)
+                break;
+            if (b[from] == id)
+                result[size++] = id;
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    // First position at or after from whose value is not below id; galloping keeps skewed intersections near
+    // O(small * log(large / small)).
+    private static int gallop(int[] ids, int from, int id) {
+        int step = 1;
+        int high = from;
+        while (high < ids.length && ids[high] < id) {
+            from = high + 1;
+            high += step;
+            step <<= 1;
+        }
+
+        int index = Arrays.binarySearch(ids, from, Math.min(high + 1, ids.length), id);
+        return index >= 0 ? index : -index - 1;
+    }
+}
@@ -0,0 +1,60 @@
+package database;
+
+import model.Comment;
+import model.Commodity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DataGeneratorTest {
+    private Path dataPath;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        dataPath = Files.createTempDirectory("baloot-generated");
+    }
+
+    private void generate(long seed) throws IOException {
+        DataGenerator generator = new DataGenerator(dataPath, seed);
+        generator.writeUsers(50);
+        generator.writeProviders(5);
+        generator.writeCommodities(200, 5);
+        generator.writeComments(300, 50, 200);
+    }
+
+    @Test
+    void testGeneratedDataParsesBack() throws IOException {
+        generate(42);
+        Database database = Database.getInstance();
+        new DataParser(database, dataPath.toString()).getAllLists();
+
+        assertEquals(50, database.getUsers().size());
+        assertEquals(5, database.getProviders().size());
+        assertEquals(200, database.getCommodities().size());
+        assertEquals(300, database.getComments().size());
+
+        for (Commodity commodity : database.getCommodities()) {
+            assertNotNull(database.findProvider(commodity.getProviderId()));
+            assertFalse(commodity.getCategories().isEmpty());
+            assertTrue(commodity.getPrice() > 0);
+        }
+        for (Comment comment : database.getComments()) {
+            assertNotNull(database.findUser(comment.getUsername()));
+            assertNotNull(database.findCommodity(String.valueOf(comment.getCommodityId())));
+        }
+    }
+
+    @Test
+    void testSameSeedWritesSameData() throws IOException {
+        generate(7);
+        String first = Files.readString(dataPath.resolve("commodities.json"));
+        generate(7);
+
+        assertEquals(first, Files.readString(dataPath.resolve("commodities.json")));
+    }
+}
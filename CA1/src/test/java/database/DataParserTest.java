@@ -0,0 +1,67 @@
+package database;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DataParserTest {
+    private Path dataPath;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        dataPath = Files.createTempDirectory("baloot-data");
+    }
+
+    private void write(String fileName, String json) throws IOException {
+        Files.writeString(dataPath.resolve(fileName), json);
+    }
+
+    @Test
+    void testGetAllListsStreamsEveryFile() throws IOException {
+        write("users.json", "[{\"username\": \"ali\", \"password\": \"123\", \"email\": \"ali@gmail.com\", \"credit\": 10}]");
+        write("providers.json", "[{\"id\": \"1\", \"name\": \"apple\"}, {\"id\": \"2\", \"name\": \"samsung\"}]");
+        write("commodities.json", "[{\"id\": \"1\", \"name\": \"iPhone\", \"providerId\": \"1\", \"price\": 100, "
+                + "\"categories\": [\"phone\"], \"inStock\": 5}]");
+        write("comments.json", "[{\"username\": \"ali\", \"commodityId\": 1, \"text\": \"good\"}, "
+                + "{\"username\": \"ali\", \"commodityId\": \"1\", \"text\": \"again\"}]");
+
+        Database database = Database.getInstance();
+        new DataParser(database, dataPath.toString()).getAllLists();
+
+        assertEquals(10, database.findUser("ali").getCredit());
+        assertEquals("samsung", database.findProvider("2").getName());
+        assertEquals(100, database.findCommodity("1").getPrice());
+        assertEquals(1, database.findCommoditiesByProvider("1").size());
+        assertEquals(1, database.findCommoditiesByCategory("phone").size());
+        assertEquals(2, database.findCommentsByCommodity(1).size());
+    }
+
+    @Test
+    void testGetAllListsReplacesPreviousData() throws IOException {
+        write("users.json", "[]");
+        write("providers.json", "[{\"id\": \"1\", \"name\": \"apple\"}]");
+        write("commodities.json", "[{\"id\": \"1\", \"name\": \"iPhone\", \"providerId\": \"1\"}]");
+        write("comments.json", "[]");
+        Database database = Database.getInstance();
+        new DataParser(database, dataPath.toString()).getAllLists();
+
+        write("commodities.json", "[{\"id\": \"2\", \"name\": \"Galaxy\", \"providerId\": \"1\"}]");
+        new DataParser(database, dataPath.toString()).getAllLists();
+
+        assertNull(database.findCommodity("1"));
+        assertEquals("Galaxy", database.findCommodity("2").getName());
+        assertEquals(1, database.findCommoditiesByProvider("1").size());
+    }
+
+    @Test
+    void testRejectsFilesThatAreNotArrays() throws IOException {
+        write("users.json", "{\"username\": \"ali\"}");
+
+        assertThrows(IOException.class, () -> new DataParser(Database.getInstance(), dataPath.toString()).getUsersList());
+    }
+}
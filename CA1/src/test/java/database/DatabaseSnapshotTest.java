@@ -0,0 +1,94 @@
+package database;
+
+import model.Comment;
+import model.Commodity;
+import model.Provider;
+import model.User;
+import model.Vote;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DatabaseSnapshotTest {
+    private final Database database = Database.getInstance();
+    private Path snapshot;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        snapshot = Files.createTempDirectory("baloot-snapshot").resolve("snapshot");
+        database.clearUsers();
+        database.clearProviders();
+        database.clearCommodities();
+        database.clearComments();
+    }
+
+    @Test
+    void testRoundTrip() throws IOException {
+        Provider provider = new Provider();
+        provider.setId("1");
+        provider.setName("apple");
+        database.addProvider(provider);
+
+        Commodity commodity = new Commodity();
+        commodity.setId("1");
+        commodity.setName("iPhone");
+        commodity.setProviderId("1");
+        commodity.setPrice(100);
+        commodity.setCategories(new ArrayList<>(List.of("phone", "tech")));
+        commodity.setInStock(7);
+        commodity.setInitRate(8);
+        commodity.addRate("ali", 4);
+        database.addCommodity(commodity);
+
+        User user = new User("ali", "secret", "ali@gmail.com", "2000-01-01", "Tehran");
+        user.setCredit(250);
+        user.addBuyItem(commodity, 3);
+        user.addPurchasedItem("1", 2);
+        database.addUser(user);
+
+        Comment comment = new Comment(0, "ali@gmail.com", "ali", 1, "good");
+        comment.setLike(5);
+        comment.setDislike(2);
+        comment.addUserVote("amin", Vote.LIKE);
+        database.addComment(comment);
+
+        new DatabaseSnapshot(database).write(snapshot, 42);
+        database.clearUsers();
+        database.clearCommodities();
+        assertEquals(42, new DatabaseSnapshot(database).read(snapshot));
+
+        User restoredUser = database.findUser("ali");
+        assertEquals(250, restoredUser.getCredit());
+        assertEquals(Map.of("1", 3), restoredUser.getBuyList());
+        assertEquals(Map.of("1", 2), restoredUser.getPurchasedList());
+
+        Commodity restoredCommodity = database.findCommodity("1");
+        assertEquals(100, restoredCommodity.getPrice());
+        assertEquals(List.of("phone", "tech"), restoredCommodity.getCategories());
+        assertEquals(7, restoredCommodity.getInStock());
+        assertEquals(6.0, restoredCommodity.getRating());
+        assertEquals(Map.of("ali", 4), restoredCommodity.getUserRate());
+        assertEquals(1, database.findCommoditiesByProvider("1").size());
+        assertEquals("apple", database.findProvider("1").getName());
+
+        Comment restoredComment = database.findComment(0);
+        assertEquals("good", restoredComment.getText());
+        assertEquals(6, restoredComment.getLike());
+        assertEquals(2, restoredComment.getDislike());
+        assertEquals(Map.of("amin", Vote.LIKE), restoredComment.getUserVote());
+    }
+
+    @Test
+    void testRejectsOtherFiles() throws IOException {
+        Files.write(snapshot, new byte[64]);
+        assertThrows(IOException.class, () -> new DatabaseSnapshot(database).read(snapshot));
+    }
+}
@@ -0,0 +1,44 @@
+package database;
+
+import model.Commodity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DatabaseTest {
+    private final Database database = Database.getInstance();
+
+    private List<String> byPrice(int from, int to, boolean availableOnly) {
+        return database.streamCommoditiesByPrice(from, to, availableOnly).map(Commodity::getId).toList();
+    }
+
+    @BeforeEach
+    public void setUp() {
+        database.clearCommodities();
+        for (int i = 1; i <= 3; i++) {
+            Commodity commodity = new Commodity();
+            commodity.setId(String.valueOf(i));
+            commodity.setProviderId("1");
+            commodity.setPrice(i * 100);
+            commodity.setInStock(1);
+            commodity.setCategories(new ArrayList<>());
+            database.addCommodity(commodity);
+        }
+    }
+
+    @Test
+    void testUpdatePriceRekeysPriceViews() {
+        database.updatePrice(database.findCommodity("1"), 250);
+
+        assertEquals(List.of("2", "1", "3"), byPrice(0, 1000, false));
+        assertEquals(List.of("2", "1", "3"), byPrice(0, 1000, true));
+        assertEquals(List.of(), byPrice(0, 199, true));
+        assertEquals(List.of("1"), byPrice(250, 250, true));
+        assertEquals(List.of("2", "1", "3"), database.streamCommodities(CommoditySortField.PRICE, false, null)
+                .map(Commodity::getId).toList());
+    }
+}
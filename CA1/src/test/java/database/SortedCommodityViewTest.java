@@ -0,0 +1,57 @@
+package database;
+
+import model.Commodity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SortedCommodityViewTest {
+    private SortedCommodityView view;
+
+    private static Commodity commodity(String id, int price, int inStock) {
+        Commodity commodity = new Commodity();
+        commodity.setId(id);
+        commodity.setPrice(price);
+        commodity.setInStock(inStock);
+        return commodity;
+    }
+
+    private List<String> range(int from, int to) {
+        return view.range(from, to).map(Commodity::getId).toList();
+    }
+
+    @BeforeEach
+    public void setUp() {
+        view = new SortedCommodityView(CommoditySortField.PRICE, commodity -> commodity.getInStock() > 0);
+    }
+
+    @Test
+    void testRangeIsInclusiveAndOrderedByPrice() {
+        view.put(commodity("3", 300, 1));
+        view.put(commodity("1", 100, 1));
+        view.put(commodity("2", 200, 1));
+        view.put(commodity("4", 200, 1));
+
+        assertEquals(List.of("2", "4", "3"), range(200, 300));
+        assertEquals(List.of("1"), range(0, 199));
+        assertEquals(List.of(), range(301, 1000));
+    }
+
+    @Test
+    void testPutFollowsPriceAndStockChanges() {
+        Commodity commodity = commodity("1", 100, 1);
+        view.put(commodity);
+
+        commodity.setPrice(500);
+        view.put(commodity);
+        assertEquals(List.of(), range(0, 499));
+        assertEquals(List.of("1"), range(500, 500));
+
+        commodity.setInStock(0);
+        view.put(commodity);
+        assertEquals(List.of(), range(0, 1000));
+    }
+}
@@ -0,0 +1,102 @@
+package database;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WriteAheadLogTest {
+    private Path path;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        path = Files.createTempDirectory("baloot-wal").resolve("journal");
+    }
+
+    private List<String> replay(long afterLsn) throws IOException {
+        List<String> records = new ArrayList<>();
+        WriteAheadLog.open(path, WriteAheadLog.Durability.SYNC, afterLsn,
+                (lsn, payload) -> records.add(lsn + ":" + new String(payload, StandardCharsets.UTF_8))).close();
+        return records;
+    }
+
+    private void write(String... records) throws IOException {
+        try (WriteAheadLog log = WriteAheadLog.open(path, WriteAheadLog.Durability.SYNC, 0, (lsn, payload) -> {
+        })) {
+            for (String record : records)
+                log.awaitDurable(log.append(record.getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+
+    @Test
+    void testReplayAfterReopen() throws IOException {
+        write("a", "b", "c");
+
+        assertEquals(List.of("1:a", "2:b", "3:c"), replay(0));
+    }
+
+    @Test
+    void testReplaySkipsRecordsCoveredBySnapshot() throws IOException {
+        write("a", "b", "c");
+
+        assertEquals(List.of("3:c"), replay(2));
+    }
+
+    @Test
+    void testCorruptedTailIsTruncated() throws IOException {
+        write("a", "b");
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            channel.write(ByteBuffer.wrap(new byte[]{'x'}), size - 1);
+        }
+
+        assertEquals(List.of("1:a"), replay(0));
+        assertEquals(List.of("1:a"), replay(0));
+    }
+
+    @Test
+    void testAppendAfterReopenContinuesLsn() throws IOException {
+        write("a");
+        try (WriteAheadLog log = WriteAheadLog.open(path, WriteAheadLog.Durability.SYNC, 0, (lsn, payload) -> {
+        })) {
+            assertEquals(2, log.append("b".getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+
+    @Test
+    void testRetiredSegmentIsReplayedUntilRetired() throws IOException {
+        try (WriteAheadLog log = WriteAheadLog.open(path, WriteAheadLog.Durability.SYNC, 0, (lsn, payload) -> {
+        })) {
+            log.append("a".getBytes(StandardCharsets.UTF_8));
+            assertEquals(1, log.rotate());
+            log.awaitDurable(log.append("b".getBytes(StandardCharsets.UTF_8)));
+        }
+        assertEquals(List.of("1:a", "2:b"), replay(0));
+
+        try (WriteAheadLog log = WriteAheadLog.open(path, WriteAheadLog.Durability.SYNC, 1, (lsn, payload) -> {
+        })) {
+            log.retire(1);
+            assertEquals(3, log.append("c".getBytes(StandardCharsets.UTF_8)));
+        }
+        assertEquals(List.of("2:b", "3:c"), replay(0));
+    }
+
+    @Test
+    void testAppendAfterCloseIsRejected() throws IOException {
+        WriteAheadLog log = WriteAheadLog.open(path, WriteAheadLog.Durability.SYNC, 0, (lsn, payload) -> {
+        });
+        log.close();
+
+        assertThrows(IllegalStateException.class, () -> log.append(new byte[]{1}));
+    }
+}
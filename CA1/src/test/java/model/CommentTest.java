@@ -24,6 +24,18 @@ public class CommentTest {
         assertEquals(1, comment.getDislike());
     }
 
+    @Test
+    public void testChangeUserVote() {
+        comment.addUserVote("user1", "like");
+        comment.addUserVote("user1", "like");
+        assertEquals(1, comment.getLike());
+
+        comment.addUserVote("user1", "dislike");
+        assertEquals(0, comment.getLike());
+        assertEquals(1, comment.getDislike());
+        assertEquals(Vote.DISLIKE, comment.getUserVote().get("user1"));
+    }
+
     @Test
     public void testGetCurrentDate() {
         String date = comment.getCurrentDate();
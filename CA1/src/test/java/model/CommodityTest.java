@@ -32,4 +32,12 @@ public class CommodityTest {
         commodity.addRate("user2", 3);
         assertEquals(3.0, commodity.getRating());
     }
+
+    @Test
+    public void testAddRateOverwritesPreviousScore() {
+        commodity.addRate("user1", 5);
+        commodity.addRate("user1", 9);
+        assertEquals(5.0, commodity.getRating());
+        assertEquals(9, commodity.getUserRate().get("user1"));
+    }
 }
\ No newline at end of file
@@ -7,6 +7,9 @@ import exceptions.InvalidCreditRange;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 
@@ -78,4 +81,47 @@ public class UserTest {
         Commodity commodity = new Commodity();
         assertThrows(CommodityIsNotInBuyList.class, () -> user.removeItemFromBuyList(commodity), "Should throw CommodityIsNotInBuyList");
     }
+
+    @Test
+    void testBuyListTotalFollowsPriceChanges() throws CommodityIsNotInBuyList {
+        Commodity commodity = new Commodity();
+        commodity.setId("1");
+        commodity.setPrice(100);
+        user.addBuyItem(commodity);
+        user.addBuyItem(commodity);
+        assertEquals(200, user.buyListTotal(id -> commodity), "Total should be 200");
+
+        user.removeItemFromBuyList(commodity);
+        assertEquals(100, user.buyListTotal(id -> commodity), "Total should be 100 after removal");
+
+        commodity.changePrice(150);
+        assertEquals(150, user.buyListTotal(id -> commodity), "Total should follow the new price");
+    }
+
+    @Test
+    void testAddBuyItemsOverflowLeavesCartUnchanged() {
+        Commodity first = new Commodity();
+        first.setId("1");
+        Commodity second = new Commodity();
+        second.setId("2");
+        user.addBuyItem(second, Integer.MAX_VALUE - 1);
+
+        Map<Commodity, Integer> items = new LinkedHashMap<>();
+        items.put(first, 3);
+        items.put(second, 2);
+        assertThrows(IllegalArgumentException.class, () -> user.addBuyItems(items), "Should reject the overflowing line");
+        assertFalse(user.getBuyList().containsKey("1"), "Should not add the other lines of a rejected batch");
+        assertEquals(Integer.MAX_VALUE - 1, user.getBuyList().get("2").intValue(), "Should keep the old quantity");
+    }
+
+    @Test
+    void testAddBuyItemUpToMaxQuantity() {
+        Commodity commodity = new Commodity();
+        commodity.setId("1");
+        user.addBuyItem(commodity, Integer.MAX_VALUE - 1);
+        user.addBuyItem(commodity);
+
+        assertEquals(Integer.MAX_VALUE, user.getBuyList().get("1").intValue(), "Should reach the largest quantity");
+        assertThrows(IllegalArgumentException.class, () -> user.addBuyItem(commodity), "Should reject the overflow");
+    }
 }
@@ -0,0 +1,85 @@
+package service;
+
+import database.Database;
+import database.WriteAheadLog;
+import model.Commodity;
+import model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JournalTest {
+    private final Database database = Database.getInstance();
+    private Path path;
+    private User user;
+    private Commodity commodity;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        path = Files.createTempDirectory("baloot-journal").resolve("journal");
+        database.clearUsers();
+        database.clearProviders();
+        database.clearCommodities();
+        database.clearComments();
+
+        user = new User("ali", "plain", "ali@test.com", "2000-01-01", "tehran");
+        database.addUser(user);
+        commodity = new Commodity();
+        commodity.setId("1");
+        commodity.setProviderId("1");
+        commodity.setCategories(new ArrayList<>(List.of("phone")));
+        database.addCommodity(commodity);
+    }
+
+    @Test
+    void testPasswordAndCategoryChangesAreReplayed() throws IOException {
+        try (Journal journal = Journal.open(path, WriteAheadLog.Durability.SYNC, 0)) {
+            user.setPassword("hash");
+            journal.awaitDurable(journal.setPassword(user));
+            database.updateCategories(commodity, List.of("tech", "gift"));
+            journal.awaitDurable(journal.updateCategories(commodity));
+        }
+
+        user.setPassword("plain");
+        database.updateCategories(commodity, List.of("phone"));
+        Journal.open(path, WriteAheadLog.Durability.SYNC, 0).close();
+
+        assertEquals("hash", user.getPassword());
+        assertEquals(List.of("tech", "gift"), commodity.getCategories());
+        assertTrue(database.findCommoditiesByCategory("gift").contains(commodity));
+        assertFalse(database.findCommoditiesByCategory("phone").contains(commodity));
+    }
+
+    @Test
+    void testCheckoutIsReplayed() throws IOException {
+        user.setCredit(1_000);
+        commodity.setInStock(5);
+        try (Journal journal = Journal.open(path, WriteAheadLog.Durability.SYNC, 0)) {
+            journal.awaitDurable(journal.checkout(user, 250, Map.of("1", 2)));
+        }
+
+        Journal.open(path, WriteAheadLog.Durability.SYNC, 0).close();
+
+        assertEquals(750, user.getCredit());
+        assertEquals(3, commodity.getInStock());
+        assertEquals(2, user.getPurchasedList().get("1"));
+    }
+
+    @Test
+    void testClosedJournalRejectsRecords() throws IOException {
+        Journal journal = Journal.open(path, WriteAheadLog.Durability.SYNC, 0);
+        journal.close();
+
+        assertTrue(journal.isClosed());
+        assertThrows(IllegalStateException.class, journal::checkWritable);
+        assertThrows(IllegalStateException.class, () -> journal.setPassword(user));
+    }
+}
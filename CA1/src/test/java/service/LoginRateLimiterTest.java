@@ -0,0 +1,49 @@
+package service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LoginRateLimiterTest {
+    @Test
+    void testBurstIsEnforcedPerKey() {
+        LoginRateLimiter limiter = new LoginRateLimiter(2, 1);
+
+        assertTrue(limiter.tryAcquire("ali"));
+        assertTrue(limiter.tryAcquire("ali"));
+        assertFalse(limiter.tryAcquire("ali"));
+        assertTrue(limiter.tryAcquire("reza"));
+    }
+
+    @Test
+    void testReleasedAttemptsAreNotCharged() {
+        LoginRateLimiter limiter = new LoginRateLimiter(2, 1);
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limiter.tryAcquire("ali"));
+            limiter.release("ali");
+        }
+        assertTrue(limiter.tryAcquire("ali"));
+        assertTrue(limiter.tryAcquire("ali"));
+        assertFalse(limiter.tryAcquire("ali"));
+    }
+
+    @Test
+    void testReleaseNeverExceedsBurst() {
+        LoginRateLimiter limiter = new LoginRateLimiter(1, 1);
+
+        limiter.tryAcquire("ali");
+        limiter.release("ali");
+        limiter.release("ali");
+        assertTrue(limiter.tryAcquire("ali"));
+        assertFalse(limiter.tryAcquire("ali"));
+    }
+
+    @Test
+    void testZeroBurstDisablesLimit() {
+        LoginRateLimiter limiter = new LoginRateLimiter(0, 0);
+
+        for (int i = 0; i < 100; i++)
+            assertTrue(limiter.tryAcquire("ali"));
+    }
+}
@@ -0,0 +1,45 @@
+package service;
+
+import exceptions.TooManyLoginAttempts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PasswordHasherTest {
+    private PasswordHasher hasher;
+
+    @BeforeEach
+    public void setUp() {
+        hasher = new PasswordHasher(4, 2, 16, Duration.ofMinutes(1));
+    }
+
+    @Test
+    void testHashMatchesOnlyItsPassword() throws TooManyLoginAttempts {
+        String hash = hasher.hash("secret");
+
+        assertTrue(PasswordHasher.isHash(hash));
+        assertTrue(hasher.matches("ali", "secret", hash));
+        assertTrue(hasher.matches("ali", "secret", hash));
+        assertFalse(hasher.matches("ali", "wrong", hash));
+    }
+
+    @Test
+    void testRememberedLoginIsTiedToTheStoredHash() throws TooManyLoginAttempts {
+        String first = hasher.hash("secret");
+        String second = hasher.hash("other");
+        assertTrue(hasher.matches("ali", "secret", first));
+
+        assertFalse(hasher.matches("ali", "secret", second));
+    }
+
+    @Test
+    void testPlaintextSeedPasswordsAreCompared() throws TooManyLoginAttempts {
+        assertFalse(PasswordHasher.isHash("123"));
+        assertTrue(hasher.matches("ali", "123", "123"));
+        assertFalse(hasher.matches("ali", "1234", "123"));
+        assertFalse(hasher.matches("ali", null, "123"));
+    }
+}
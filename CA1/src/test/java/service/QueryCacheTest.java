@@ -0,0 +1,77 @@
+package service;
+
+import model.Commodity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QueryCacheTest {
+    private QueryCache cache;
+    private AtomicInteger runs;
+
+    private List<Commodity> query(QueryCache.Kind kind, String value) {
+        return cache.get(kind, value, () -> {
+            runs.incrementAndGet();
+            return new ArrayList<>();
+        });
+    }
+
+    private static Commodity commodity(String... categories) {
+        Commodity commodity = new Commodity();
+        commodity.setCategories(new ArrayList<>(List.of(categories)));
+        return commodity;
+    }
+
+    @BeforeEach
+    public void setUp() {
+        cache = new QueryCache("test", 100, Duration.ofMinutes(1));
+        runs = new AtomicInteger();
+    }
+
+    @Test
+    void testHitsAreServedWithoutRunningTheQuery() {
+        query(QueryCache.Kind.CATEGORY, "a");
+        query(QueryCache.Kind.CATEGORY, "a");
+        assertEquals(1, runs.get());
+        assertThrows(UnsupportedOperationException.class, () -> query(QueryCache.Kind.CATEGORY, "a").add(commodity()));
+    }
+
+    @Test
+    void testCategoryChangeOnlyInvalidatesTouchedCategories() {
+        query(QueryCache.Kind.CATEGORY, "a");
+        query(QueryCache.Kind.CATEGORY, "b");
+        cache.onCategoriesChanged(commodity("a"), List.of());
+
+        query(QueryCache.Kind.CATEGORY, "a");
+        query(QueryCache.Kind.CATEGORY, "b");
+        assertEquals(3, runs.get());
+    }
+
+    @Test
+    void testQueryRacingAnInvalidationIsNotKept() {
+        cache.get(QueryCache.Kind.CATEGORY, "a", () -> {
+            cache.onCategoriesChanged(commodity("a"), List.of());
+            return new ArrayList<>();
+        });
+
+        query(QueryCache.Kind.CATEGORY, "a");
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void testResetInvalidatesEverything() {
+        query(QueryCache.Kind.NAME, "x");
+        query(QueryCache.Kind.PROVIDER, "p");
+        cache.onCatalogReset();
+
+        query(QueryCache.Kind.NAME, "x");
+        query(QueryCache.Kind.PROVIDER, "p");
+        assertEquals(4, runs.get());
+    }
+}
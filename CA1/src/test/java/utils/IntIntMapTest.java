@@ -0,0 +1,50 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IntIntMapTest {
+    @Test
+    public void testZeroKey() {
+        IntIntMap map = new IntIntMap();
+        map.put(0, 7);
+        assertTrue(map.containsKey(0));
+        assertEquals(7, map.get(0, -1));
+        assertEquals(1, map.size());
+
+        assertTrue(map.remove(0));
+        assertFalse(map.containsKey(0));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    public void testMatchesHashMapUnderRandomOperations() {
+        IntIntMap map = new IntIntMap();
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(1);
+
+        for (int i = 0; i < 100_000; i++) {
+            int key = random.nextInt(512) - 64;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key) != null, map.remove(key));
+            } else {
+                int value = random.nextInt();
+                expected.put(key, value);
+                map.put(key, value);
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (var entry : expected.entrySet())
+            assertEquals(entry.getValue(), map.get(entry.getKey(), 0));
+
+        Map<Integer, Integer> iterated = new HashMap<>();
+        map.forEach(iterated::put);
+        assertEquals(expected, iterated);
+    }
+}
@@ -0,0 +1,23 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PostingListTest {
+    @Test
+    void testIntersect() {
+        assertArrayEquals(new int[]{3, 9}, PostingList.intersect(new int[]{1, 3, 5, 9}, new int[]{2, 3, 4, 8, 9, 10}));
+        assertArrayEquals(new int[]{}, PostingList.intersect(new int[]{1, 2}, new int[]{3, 4}));
+        assertArrayEquals(new int[]{}, PostingList.intersect(new int[]{}, new int[]{3, 4}));
+    }
+
+    @Test
+    void testIntersectSkewedLists() {
+        int[] large = new int[10_000];
+        for (int i = 0; i < large.length; i++)
+            large[i] = i * 2;
+
+        assertArrayEquals(new int[]{0, 500, 19_998}, PostingList.intersect(new int[]{0, 7, 500, 19_998, 20_000}, large));
+    }
+}